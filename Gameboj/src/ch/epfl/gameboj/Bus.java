@@ -3,6 +3,7 @@ package ch.epfl.gameboj;
 import java.util.ArrayList;
 import java.util.Objects;
 import ch.epfl.gameboj.component.Component;
+import ch.epfl.gameboj.component.memory.Ram;
 
 /**
 *@author Alvaro Cauderan ( 282186)
@@ -13,6 +14,10 @@ import ch.epfl.gameboj.component.Component;
 */
 public final class Bus {
     private ArrayList<Component> attachedto = new ArrayList<>();
+    private final Component[] pages = new Component[256];
+    private final Component[] ioPage = new Component[256];
+    private final byte[][] directPages = new byte[256][];
+    private final int[] directOffsets = new int[256];
     
     
 /**
@@ -26,10 +31,96 @@ public final class Bus {
                 Objects.requireNonNull(component, "The component is null"));
 
     }
+
+/**
+ *  attache le composant donné au bus pour la plage d'adresses donnée, que le
+ *  composant possède seul : les lectures et écritures dans cette plage lui
+ *  sont transmises directement, au travers d'une table indexée par l'octet de
+ *  poids fort de l'adresse (ou par l'adresse entière pour la page des
+ *  registres, à partir de FF00). Un composant peut être attaché pour
+ *  plusieurs plages.
+ *  @param component le composant a attacher
+ *  @param startAddress donne l'addresse de départ (inclue)
+ *  @param endAddress donne l'addresse de fin (exclue)
+ *  @throws NullPointerException si le composant vaut null
+ *  @throws IllegalArgumentException si la plage n'est pas valide ou si une
+ *  partie de la plage appartient déjà à un autre composant
+ */
+    public void attach(Component component, int startAddress, int endAddress) {
+
+        Objects.requireNonNull(component, "The component is null");
+        Preconditions.checkBits16(startAddress);
+        Preconditions.checkArgument(
+                startAddress <= endAddress && endAddress <= 0x10000);
+
+        int address = startAddress;
+        while (address < endAddress) {
+
+            Component[] table = address < AddressMap.REGS_START ? pages
+                    : ioPage;
+            int index = address < AddressMap.REGS_START ? address >>> 8
+                    : address & 0xFF;
+
+            Preconditions.checkArgument(
+                    table[index] == null || table[index] == component);
+            table[index] = component;
+
+            address = address < AddressMap.REGS_START ? (address | 0xFF) + 1
+                    : address + 1;
+        }
+    }
+
+/**
+ *  fait lire directement dans le tableau donné les pages de la plage
+ *  d'adresses donnée, sans passer par le composant qui les possède : l'octet
+ *  à l'adresse startAddress + i est data[offset + i]. Le composant qui fait
+ *  cette demande doit posséder la plage et y lire ce tableau, et refaire la
+ *  demande lorsque la correspondance change (changement de banque, etc.).
+ *  Les écritures passent toujours par le composant.
+ *  @param startAddress donne l'addresse de départ (inclue), début de page
+ *  @param endAddress donne l'addresse de fin (exclue), début de page
+ *  @param data le tableau contenant les octets de la plage
+ *  @param offset l'index dans le tableau de l'octet à l'adresse de départ
+ *  @throws NullPointerException si le tableau vaut null
+ *  @throws IllegalArgumentException si la plage n'est pas formée de pages
+ *  entières situées avant les registres ou si elle sort du tableau
+ */
+    public void mapDirect(int startAddress, int endAddress, byte[] data,
+            int offset) {
+
+        Objects.requireNonNull(data);
+        Preconditions.checkArgument((startAddress & 0xFF) == 0
+                && (endAddress & 0xFF) == 0 && 0 <= startAddress
+                && startAddress <= endAddress
+                && endAddress <= AddressMap.REGS_START);
+        Preconditions.checkArgument(offset >= 0
+                && offset + (endAddress - startAddress) <= data.length);
+
+        for (int page = startAddress >>> 8; page < endAddress >>> 8; ++page) {
+            directPages[page] = data;
+            directOffsets[page] = offset + (page << 8) - startAddress;
+        }
+    }
+
+/**
+ *  retourne le composant qui possède l'adresse donnée, ou null si aucun
+ *  composant ne l'a réclamée
+ *  @param address l'adresse dont on cherche le propriétaire
+ *  @return le composant
+ */
+    private Component owner(int address) {
+
+        return address < AddressMap.REGS_START ? pages[address >>> 8]
+                : ioPage[address & 0xFF];
+    }
     
 /**
  *  retourne la valeur stockée à l'adresse donnée si au moins un des composants attaché au bus 
- *  possède une valeur à cette adresse, ou FF16 sinon 
+ *  possède une valeur à cette adresse, ou FF16 sinon. Une page lue
+ *  directement dans un tableau l'est en premier, sinon le propriétaire de
+ *  l'adresse est consulté, puis les composants attachés sans plage.
+ *  L'adresse n'est vérifiée qu'ici, une seule fois : les composants sont
+ *  ensuite lus par readUnchecked.
  *  @param address  l'addresse où il y a les valeurs a retourner
  *  @throws IllegalArgumentException si l'adresse n'est pas une valeur 16 bits
  *  
@@ -37,11 +128,34 @@ public final class Bus {
     public int read(int address) 
     {
         
-        int ad = Preconditions.checkBits16(address);
+        return readUnchecked(Preconditions.checkBits16(address));
+    }
+
+    /**
+     *  comme read, mais sans vérifier l'adresse, pour les composants dont les
+     *  adresses sont par construction des valeurs 16 bits (le processeur)
+     *  @param ad l'adresse, que l'appelant garantit être une valeur 16 bits
+     *  @return la valeur stockée à l'adresse donnée, ou FF16
+     */
+    public int readUnchecked(int ad) {
+
+        byte[] direct = directPages[ad >>> 8];
+        if (direct != null)
+            return Byte.toUnsignedInt(
+                    direct[directOffsets[ad >>> 8] + (ad & 0xFF)]);
+
+        Component owner = owner(ad);
+        if (owner != null) {
+            int value = owner.readUnchecked(ad);
+            if (value != Component.NO_DATA)
+                return value;
+        }
+
         for (Component c : attachedto) {
-            if (c.read(ad) != Component.NO_DATA ) {
+            int value = c.readUnchecked(ad);
+            if (value != Component.NO_DATA ) {
 
-                return c.read(ad);
+                return value;
             }
         }
 
@@ -50,7 +164,65 @@ public final class Bus {
     }
     
     /**
-     *  qui écrit la valeur à l'adresse donnée dans tous les composants connectés au bus
+     *  retourne le premier cycle, supérieur ou égal au cycle donné, à partir
+     *  duquel la valeur lue à l'adresse donnée peut changer sans écriture du
+     *  processeur, selon le propriétaire de l'adresse et les composants
+     *  attachés sans plage
+     *  
+     *  @param address l'adresse lue
+     *  @param cycle le cycle à partir duquel la valeur est observée
+     *  @return le premier cycle où la valeur peut changer
+     *  @throws IllegalArgumentException si l'adresse n'est pas une valeur 16 bits
+     *  @see Component#nextChangeCycle(int, long)
+     */
+    public long nextChangeCycle(int address, long cycle) {
+
+        int ad = Preconditions.checkBits16(address);
+
+        Component owner = owner(ad);
+        long next = owner == null ? Long.MAX_VALUE
+                : owner.nextChangeCycle(ad, cycle);
+
+        for (Component c : attachedto)
+            next = Math.min(next, c.nextChangeCycle(ad, cycle));
+
+        return next;
+    }
+
+    /**
+     *  copie dans la mémoire donnée les octets de la plage d'adresses donnée,
+     *  d'un seul bloc si la plage appartient à un composant capable de le
+     *  faire, sinon octet par octet comme le ferait read
+     *  
+     *  @param address l'adresse du premier octet à copier
+     *  @param destination la mémoire dans laquelle copier les octets
+     *  @param destinationIndex l'index du premier octet écrit dans la mémoire
+     *  @param length le nombre d'octets à copier
+     *  @throws IllegalArgumentException si la plage ne tient pas dans
+     *  l'espace d'adressage de 16 bits
+     */
+    public void copy(int address, Ram destination, int destinationIndex,
+            int length) {
+
+        Preconditions.checkBits16(address);
+        Preconditions.checkArgument(length >= 0 && address + length <= 0x10000);
+
+        Component owner = owner(address);
+        if (length > 0 && owner != null
+                && owner == owner(address + length - 1)
+                && owner.copyTo(address, destination, destinationIndex,
+                        length))
+            return;
+
+        for (int i = 0; i < length; ++i)
+            destination.write(destinationIndex + i, read(address + i));
+    }
+
+    /**
+     *  qui écrit la valeur à l'adresse donnée dans le composant qui la possède
+     *  ainsi que dans tous les composants attachés sans plage. L'adresse et la
+     *  donnée ne sont vérifiées qu'ici, une seule fois : les composants sont
+     *  ensuite écrits par writeUnchecked.
      *  
      *  @param address addresse à laquelle la nouvelle valeur sera écrite
      *  @param data valeur a inscrire à l'addresse
@@ -61,11 +233,23 @@ public final class Bus {
 
     public void write(int address, int data) {
 
-        int a = Preconditions.checkBits16(address);
-        int d = Preconditions.checkBits8(data);
+        writeUnchecked(Preconditions.checkBits16(address),
+                Preconditions.checkBits8(data));
+    }
+
+    /**
+     *  comme write, mais sans vérifier l'adresse ni la donnée
+     *  @param a l'adresse, que l'appelant garantit être une valeur 16 bits
+     *  @param d la donnée, que l'appelant garantit être une valeur 8 bits
+     */
+    public void writeUnchecked(int a, int d) {
+
+        Component owner = owner(a);
+        if (owner != null)
+            owner.writeUnchecked(a, d);
 
         for (Component c : attachedto) {
-            c.write(a, d);
+            c.writeUnchecked(a, d);
         }
     }
 }
@@ -0,0 +1,101 @@
+package ch.epfl.gameboj;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import ch.epfl.gameboj.component.cartridge.Cartridge;
+import ch.epfl.gameboj.component.cpu.Alu;
+import ch.epfl.gameboj.component.cpu.Alu.RotDir;
+import ch.epfl.gameboj.component.cpu.TableAlu;
+
+/**
+ * compare la vitesse de l'unité arithmétique et logique calculée à celle de
+ * sa variante à tables, d'abord en parcourant toutes les valeurs 8 bits, puis,
+ * si une cartouche est donnée, en l'exécutant avec chacune
+ *
+ * usage : DebugAluBenchmark [rom] [cycles] [répétitions]
+ */
+public final class DebugAluBenchmark {
+
+    private static final int PASSES = 200;
+
+    public static void main(String[] args) throws IOException {
+
+        File romFile = args.length > 0 ? new File(args[0]) : null;
+        long cycles = args.length > 1 ? Long.parseLong(args[1]) : 30_000_000L;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        for (int i = 0; i < runs; ++i) {
+            long start = System.nanoTime();
+            int computed = computed();
+            long computedTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int tables = tables();
+            long tablesTime = System.nanoTime() - start;
+
+            System.out.printf("alu : %.3f / %.3f s%s%n", computedTime / 1e9,
+                    tablesTime / 1e9,
+                    computed == tables ? "" : " (résultats différents)");
+
+            if (romFile != null) {
+                int[] computedRegs = run(romFile, cycles, false, "calculée");
+                int[] tablesRegs = run(romFile, cycles, true, "tables  ");
+                if (!Arrays.equals(computedRegs, tablesRegs))
+                    System.out.println("états différents : "
+                            + Arrays.toString(computedRegs) + " / "
+                            + Arrays.toString(tablesRegs));
+            }
+        }
+    }
+
+    private static int computed() {
+        int check = 0;
+        for (int p = 0; p < PASSES; ++p) {
+            boolean c = (p & 1) != 0;
+            for (int l = 0; l < 0x100; ++l) {
+                for (int r = 0; r < 0x100; ++r)
+                    check += Alu.add(l, r, c) ^ Alu.sub(l, r, c);
+                check += Alu.rotate(RotDir.LEFT, l, c)
+                        ^ Alu.rotate(RotDir.RIGHT, l)
+                        ^ Alu.shiftLeft(l) ^ Alu.shiftRightA(l)
+                        ^ Alu.shiftRightL(l) ^ Alu.swap(l)
+                        ^ Alu.bcdAdjust(l, (p & 2) != 0, (p & 4) != 0, c);
+            }
+        }
+        return check;
+    }
+
+    private static int tables() {
+        int check = 0;
+        for (int p = 0; p < PASSES; ++p) {
+            boolean c = (p & 1) != 0;
+            for (int l = 0; l < 0x100; ++l) {
+                for (int r = 0; r < 0x100; ++r)
+                    check += TableAlu.add(l, r, c) ^ TableAlu.sub(l, r, c);
+                check += TableAlu.rotate(RotDir.LEFT, l, c)
+                        ^ TableAlu.rotate(RotDir.RIGHT, l)
+                        ^ TableAlu.shiftLeft(l) ^ TableAlu.shiftRightA(l)
+                        ^ TableAlu.shiftRightL(l) ^ TableAlu.swap(l)
+                        ^ TableAlu.bcdAdjust(l, (p & 2) != 0, (p & 4) != 0,
+                                c);
+            }
+        }
+        return check;
+    }
+
+    private static int[] run(File romFile, long cycles, boolean aluTables,
+            String name) throws IOException {
+
+        GameBoy gb = new GameBoy(Cartridge.ofFile(romFile));
+        gb.cpu().useAluTables(aluTables);
+
+        long startTime = System.nanoTime();
+        gb.runUntil(cycles);
+        long totalTime = System.nanoTime() - startTime;
+
+        System.out.printf("%s : %.3f s%n", name, totalTime / 1e9);
+        return gb.cpu()._testGetPcSpAFBCDEHL();
+    }
+}
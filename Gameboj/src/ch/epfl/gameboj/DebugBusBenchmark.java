@@ -0,0 +1,101 @@
+package ch.epfl.gameboj;
+
+import ch.epfl.gameboj.component.Timer;
+import ch.epfl.gameboj.component.cpu.Cpu;
+import ch.epfl.gameboj.component.lcd.LcdController;
+import ch.epfl.gameboj.component.memory.Ram;
+import ch.epfl.gameboj.component.memory.RamController;
+
+/**
+ * compare la vitesse des accès vérifiés (read, write, set) à celle des accès
+ * internes sans vérification, pour la mémoire vive, le banc de registres et
+ * le bus, en écrivant puis relisant la mémoire de travail, la mémoire vidéo
+ * et les registres du minuteur
+ *
+ * usage : DebugBusBenchmark [accès] [répétitions]
+ */
+public final class DebugBusBenchmark {
+
+    private enum Reg implements Register {
+        R0, R1, R2, R3, R4, R5, R6, R7
+    }
+
+    public static void main(String[] args) {
+
+        int accesses = args.length > 0 ? Integer.parseInt(args[0])
+                : 50_000_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Ram ram = new Ram(AddressMap.WORK_RAM_SIZE);
+        Reg[] allRegs = Reg.values();
+        RegisterFile<Reg> regs = new RegisterFile<>(allRegs);
+
+        Bus bus = new Bus();
+        Cpu cpu = new Cpu();
+        cpu.attachTo(bus);
+        new LcdController(cpu).attachTo(bus);
+        new Timer(cpu).attachTo(bus);
+        new RamController(ram, AddressMap.WORK_RAM_START).attachTo(bus);
+
+        int[] addresses = { AddressMap.WORK_RAM_START + 0x123,
+                AddressMap.VIDEO_RAM_START + 0x456, AddressMap.REG_TMA,
+                AddressMap.HIGH_RAM_START + 0x12 };
+
+        for (int r = 0; r < runs; ++r) {
+
+            int mask = AddressMap.WORK_RAM_SIZE - 1;
+            long start = System.nanoTime();
+            int check = 0;
+            for (int i = 0; i < accesses; ++i) {
+                ram.write(i & mask, i & 0xFF);
+                check += ram.read(i & mask);
+            }
+            long ramChecked = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int uCheck = 0;
+            for (int i = 0; i < accesses; ++i) {
+                ram.writeUnchecked(i & mask, i & 0xFF);
+                uCheck += ram.readUnchecked(i & mask);
+            }
+            long ramUnchecked = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < accesses; ++i) {
+                regs.set(allRegs[i & 7], i & 0xFF);
+                check += regs.get(allRegs[i & 7]);
+            }
+            long regsChecked = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < accesses; ++i) {
+                regs.setUnchecked(allRegs[i & 7], i & 0xFF);
+                uCheck += regs.get(allRegs[i & 7]);
+            }
+            long regsUnchecked = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < accesses; ++i) {
+                int a = addresses[i & 3];
+                bus.write(a, i & 0xFF);
+                check += bus.read(a);
+            }
+            long busChecked = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < accesses; ++i) {
+                int a = addresses[i & 3];
+                bus.writeUnchecked(a, i & 0xFF);
+                uCheck += bus.readUnchecked(a);
+            }
+            long busUnchecked = System.nanoTime() - start;
+
+            System.out.printf(
+                    "mémoire : %.3f / %.3f s, registres : %.3f / %.3f s, "
+                            + "bus : %.3f / %.3f s%s%n",
+                    ramChecked / 1e9, ramUnchecked / 1e9, regsChecked / 1e9,
+                    regsUnchecked / 1e9, busChecked / 1e9, busUnchecked / 1e9,
+                    check == uCheck ? "" : " (résultats différents)");
+        }
+    }
+}
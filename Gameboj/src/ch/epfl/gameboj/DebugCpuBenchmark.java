@@ -0,0 +1,61 @@
+package ch.epfl.gameboj;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import ch.epfl.gameboj.component.cartridge.Cartridge;
+
+/**
+ * compare la vitesse de la table de traitants du processeur à celle de
+ * l'aiguillage de référence, en exécutant la même cartouche avec chacun, avec
+ * et sans exécution groupée des boucles courtes, ainsi qu'à l'exécution par
+ * blocs chauds, tous devant aboutir au même état
+ * 
+ * usage : DebugCpuBenchmark rom [cycles] [répétitions]
+ */
+public final class DebugCpuBenchmark {
+
+    public static void main(String[] args) throws IOException {
+
+        File romFile = new File(args[0]);
+        long cycles = args.length > 1 ? Long.parseLong(args[1]) : 30_000_000L;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        for (int i = 0; i < runs; ++i) {
+            int[] switchRegs = run(romFile, cycles, true, false, false,
+                    "switch  ");
+            int[] handlerRegs = run(romFile, cycles, false, false, false,
+                    "handlers");
+            int[] fusedRegs = run(romFile, cycles, false, false, true,
+                    "boucles ");
+            int[] blockRegs = run(romFile, cycles, false, true, false,
+                    "blocs   ");
+            if (!Arrays.equals(switchRegs, handlerRegs)
+                    || !Arrays.equals(handlerRegs, fusedRegs)
+                    || !Arrays.equals(handlerRegs, blockRegs))
+                System.out.println("états différents : "
+                        + Arrays.toString(switchRegs) + " / "
+                        + Arrays.toString(handlerRegs) + " / "
+                        + Arrays.toString(fusedRegs) + " / "
+                        + Arrays.toString(blockRegs));
+        }
+    }
+
+    private static int[] run(File romFile, long cycles, boolean switchDispatch,
+            boolean blockExecution, boolean loopFusion, String name)
+            throws IOException {
+
+        GameBoy gb = new GameBoy(Cartridge.ofFile(romFile));
+        gb.cpu().useSwitchDispatch(switchDispatch);
+        gb.cpu().useBlockExecution(blockExecution);
+        gb.cpu().useLoopFusion(loopFusion);
+
+        long startTime = System.nanoTime();
+        gb.runUntil(cycles);
+        long totalTime = System.nanoTime() - startTime;
+
+        System.out.printf("%s : %.3f s%n", name, totalTime / 1e9);
+        return gb.cpu()._testGetPcSpAFBCDEHL();
+    }
+}
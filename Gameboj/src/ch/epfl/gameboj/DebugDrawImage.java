@@ -35,9 +35,9 @@ public final class DebugDrawImage {
         LcdImage li = ib.build();
 
         BufferedImage i = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
-        for (int y = 0; y < h; ++y)
-            for (int x = 0; x < w; ++x)
-                i.setRGB(x, y, COLOR_MAP[li.getColor(x, y)]);
+        int[] argb = new int[w * h];
+        li.copyPixels(argb, COLOR_MAP);
+        i.setRGB(0, 0, w, h, argb, 0, w);
         ImageIO.write(i, "png", new File("sml.png"));
         System.out.println("done");
     }
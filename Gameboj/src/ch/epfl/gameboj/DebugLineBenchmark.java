@@ -0,0 +1,79 @@
+package ch.epfl.gameboj;
+
+import java.util.Random;
+
+import ch.epfl.gameboj.bits.BitVector;
+import ch.epfl.gameboj.component.lcd.LcdImageLine;
+import ch.epfl.gameboj.component.lcd.MutableLcdImageLine;
+
+/**
+ * compare la vitesse de composition d'une ligne de l'écran (extraction du
+ * fond, changement de couleurs, superposition des sprites et jointure de la
+ * fenêtre) avec les lignes immuables et avec les lignes modifiables, dont les
+ * opérations traitent les trois plans en une seule passe
+ * 
+ * usage : DebugLineBenchmark [lignes] [répétitions]
+ */
+public final class DebugLineBenchmark {
+
+    private static final int WIDTH = 160, BACKGROUND_WIDTH = 256;
+    private static final int PALETTE = 0b00_01_11_10;
+
+    public static void main(String[] args) {
+
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Random rng = new Random(2018);
+        LcdImageLine background = randomLine(rng, BACKGROUND_WIDTH);
+        LcdImageLine window = randomLine(rng, WIDTH);
+        LcdImageLine sprites = randomLine(rng, WIDTH);
+
+        MutableLcdImageLine mBackground = new MutableLcdImageLine(
+                BACKGROUND_WIDTH).set(background);
+        MutableLcdImageLine mWindow = new MutableLcdImageLine(WIDTH)
+                .set(window);
+        MutableLcdImageLine mSprites = new MutableLcdImageLine(WIDTH)
+                .set(sprites);
+        MutableLcdImageLine mLine = new MutableLcdImageLine(WIDTH);
+
+        for (int r = 0; r < runs; ++r) {
+
+            int check = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < lines; ++i) {
+                LcdImageLine line = background.extract(i & 0xFF, WIDTH)
+                        .mapColors(PALETTE).join(window, 7).below(sprites);
+                check += line.msb().testBit(i % WIDTH) ? 1 : 0;
+            }
+            long immutable = System.nanoTime() - start;
+
+            int mCheck = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < lines; ++i) {
+                mLine.extract(mBackground, i & 0xFF).mapColors(PALETTE)
+                        .join(mWindow, 7).below(mSprites);
+                mCheck += mLine.toLcdImageLine().msb().testBit(i % WIDTH) ? 1
+                        : 0;
+            }
+            long mutable = System.nanoTime() - start;
+
+            System.out.printf("immuables : %.3f s, modifiables : %.3f s%s%n",
+                    immutable / 1e9, mutable / 1e9,
+                    check == mCheck ? "" : " (résultats différents)");
+        }
+    }
+
+    private static LcdImageLine randomLine(Random rng, int size) {
+
+        BitVector.Builder msb = new BitVector.Builder(size);
+        BitVector.Builder lsb = new BitVector.Builder(size);
+        BitVector.Builder opacity = new BitVector.Builder(size);
+        for (int i = 0; i < size / Byte.SIZE; ++i) {
+            msb.setByte(i, rng.nextInt(0x100));
+            lsb.setByte(i, rng.nextInt(0x100));
+            opacity.setByte(i, rng.nextInt(0x100));
+        }
+        return new LcdImageLine(msb.build(), lsb.build(), opacity.build());
+    }
+}
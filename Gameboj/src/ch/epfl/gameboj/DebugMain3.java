@@ -31,9 +31,9 @@ public final class DebugMain3 {
       new BufferedImage(li.getWidth(),
             li.getHeight(),
             BufferedImage.TYPE_INT_RGB);
-    for (int y = 0; y < li.getHeight(); ++y)
-      for (int x = 0; x < li.getWidth(); ++x)
-    i.setRGB(x, y, COLOR_MAP[li.getColor(x, y)]);
+    int[] argb = new int[li.getWidth() * li.getHeight()];
+    li.copyPixels(argb, COLOR_MAP);
+    i.setRGB(0, 0, li.getWidth(), li.getHeight(), argb, 0, li.getWidth());
     ImageIO.write(i, "png", new File("gb.png"));
   }
 }
\ No newline at end of file
@@ -40,10 +40,12 @@ public class GameBoy {
     private RamController workCopy;
     private BootRomController controller;
     private long cycles = 0;
+    private long runLimit = 0;
     private Timer timer;
     private LcdController lcdControl;
     private Joypad joyPad;
     private Cartridge loadedCartridge;
+    private Scheduler scheduler;
     private BootRomController bootRomController;
     private static final long CYCLES_PER_SECOND = (long) Math.pow(2, 20);
     public static final double CYCLES_PER_NANOSECOND = CYCLES_PER_SECOND
@@ -81,6 +83,10 @@ public class GameBoy {
         workControl.attachTo(bus);
         joyPad.attachTo(bus);
 
+        scheduler = new Scheduler(timer, lcdControl, cpu);
+        Scheduler others = new Scheduler(timer, lcdControl);
+        cpu.setIdleHorizon(
+                c -> Math.min(runLimit, others.nextEventCycle(c)));
     }
 
     public GameBoy(Cartridge cartridge, String saveFileName)
@@ -121,6 +127,10 @@ public class GameBoy {
         workControl.attachTo(bus);
         joyPad.attachTo(bus);
 
+        scheduler = new Scheduler(timer, lcdControl, cpu);
+        Scheduler others = new Scheduler(timer, lcdControl);
+        cpu.setIdleHorizon(
+                c -> Math.min(runLimit, others.nextEventCycle(c)));
     }
 
     /**
@@ -153,7 +163,8 @@ public class GameBoy {
     }
 
     /**
-     * Simule le fonctionnement de la gameboy, en incrémentant les cycles
+     * Simule le fonctionnement de la gameboy, en sautant directement d'un cycle
+     * durant lequel un des composants a du travail au suivant
      * 
      * @param cycle
      *            le nombre de cycle que la gameboy doit effectuer
@@ -164,14 +175,20 @@ public class GameBoy {
     public void runUntil(long cycle) {
 
         Preconditions.checkArgument(cycles() <= cycle);
+        runLimit = cycle;
 
         while (cycles() < cycle) {
 
-            timer.cycle(cycles);
-            lcdControl.cycle(cycles);
-            cpu.cycle(cycles);
-            ++cycles;
+            cycles = Math.min(cycle, scheduler.nextEventCycle(cycles));
+
+            if (cycles < cycle) {
+                scheduler.cycle(cycles);
+                ++cycles;
+            }
         }
+
+        timer.cycle(cycles - 1);
+        lcdControl.cycle(cycles - 1);
     }
 
     /**
@@ -183,6 +200,25 @@ public class GameBoy {
         return timer;
     }
 
+    /**
+     * Fixe la fréquence à laquelle les images sont dessinées, ce qui permet
+     * de faire tourner la gameboy sans écran : avec un intervalle de 0 aucune
+     * image n'est dessinée, avec un intervalle de n une image sur n l'est.
+     * L'émulation elle-même (registres de l'écran, interruptions) n'en est
+     * pas affectée.
+     * 
+     * @param interval
+     *            l'intervalle entre deux images dessinées, ou 0
+     * @throws IllegalArgumentException
+     *             si l'intervalle est négatif
+     */
+    public void setRenderInterval(int interval) {
+
+        Preconditions.checkArgument(interval >= 0);
+        lcdControl.setRendering(interval != 0);
+        lcdControl.setFrameSkip(Math.max(interval - 1, 0));
+    }
+
     public LcdController getLcdController() {
         return lcdControl;
     }
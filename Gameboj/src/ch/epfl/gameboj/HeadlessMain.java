@@ -0,0 +1,174 @@
+package ch.epfl.gameboj;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import ch.epfl.gameboj.component.Joypad;
+import ch.epfl.gameboj.component.Joypad.Key;
+import ch.epfl.gameboj.component.cartridge.Cartridge;
+import ch.epfl.gameboj.component.lcd.LcdController;
+import ch.epfl.gameboj.component.lcd.LcdImage;
+
+/**
+ * @author Alvaro Cauderan ( 282186)
+ * @author Gauthier Boeshertz (283192)
+ *
+ *         Programme faisant tourner une cartouche sans écran, ni JavaFX ni
+ *         AWT, pour les tests automatiques et les traitements par lots :
+ *
+ *         <pre>
+ * HeadlessMain rom cycles [-input script] [-render n] [-ram fichier]
+ *         </pre>
+ *
+ *         La cartouche est exécutée durant le nombre de cycles donné. Le
+ *         script d'entrée contient une action par ligne, de la forme
+ *         « cycle press|release touche » (par exemple « 1000000 press A »),
+ *         les lignes vides et celles commençant par # étant ignorées. Avec
+ *         -render n, une image sur n est dessinée et son hachage affiché ;
+ *         sinon seule la dernière image l'est. Le hachage de la mémoire de
+ *         travail est affiché à la fin, et son contenu écrit dans le fichier
+ *         donné par -ram.
+ */
+public final class HeadlessMain {
+
+    private static final int FRAME_CYCLES = 17556;
+
+    private static final class Action {
+        private final long cycle;
+        private final Key key;
+        private final boolean pressed;
+
+        private Action(long cycle, Key key, boolean pressed) {
+            this.cycle = cycle;
+            this.key = key;
+            this.pressed = pressed;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 2 || args.length % 2 != 0) {
+            System.err.println("usage: HeadlessMain rom cycles"
+                    + " [-input script] [-render n] [-ram fichier]");
+            System.exit(1);
+        }
+
+        long cycles = Long.parseLong(args[1]);
+        List<Action> actions = new ArrayList<>();
+        int renderInterval = 0;
+        File ramFile = null;
+
+        for (int i = 2; i < args.length; i += 2) {
+            switch (args[i]) {
+            case "-input":
+                actions = readScript(new File(args[i + 1]));
+                break;
+            case "-render":
+                renderInterval = Integer.parseInt(args[i + 1]);
+                break;
+            case "-ram":
+                ramFile = new File(args[i + 1]);
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "option inconnue : " + args[i]);
+            }
+        }
+
+        GameBoy gb = new GameBoy(Cartridge.ofFile(new File(args[0])));
+        LcdController lcd = gb.getLcdController();
+        Joypad joypad = gb.getJoyPad();
+        gb.setRenderInterval(renderInterval);
+
+        // Les deux dernières images sont toujours dessinées, quel que soit
+        // l'intervalle, pour que l'image finale soit celle qui précède la fin
+        // de l'exécution
+        long lastFrames = Math.max(0, cycles - 2 * FRAME_CYCLES);
+        LcdImage image = lcd.currentImage();
+        int next = 0;
+
+        while (gb.cycles() < cycles) {
+
+            while (next < actions.size()
+                    && actions.get(next).cycle <= gb.cycles()) {
+                Action a = actions.get(next++);
+                if (a.pressed)
+                    joypad.keyPressed(a.key);
+                else
+                    joypad.keyReleased(a.key);
+            }
+            if (gb.cycles() >= lastFrames)
+                gb.setRenderInterval(1);
+
+            long stop = Math.min(cycles, gb.cycles() + FRAME_CYCLES);
+            if (gb.cycles() < lastFrames)
+                stop = Math.min(stop, lastFrames);
+            if (next < actions.size())
+                stop = Math.min(stop, actions.get(next).cycle);
+            gb.runUntil(stop);
+
+            if (lcd.currentImage() != image) {
+                image = lcd.currentImage();
+                if (renderInterval != 0)
+                    System.out.println("frame " + gb.cycles() + " "
+                            + Long.toHexString(hash(image)));
+            }
+        }
+
+        byte[] ram = new byte[AddressMap.WORK_RAM_SIZE];
+        for (int i = 0; i < ram.length; ++i)
+            ram[i] = (byte) gb.bus().read(AddressMap.WORK_RAM_START + i);
+        CRC32 ramHash = new CRC32();
+        ramHash.update(ram);
+
+        System.out.println("image " + Long.toHexString(hash(image)));
+        System.out.println("ram " + Long.toHexString(ramHash.getValue()));
+        System.out.println("cycles " + gb.cycles());
+
+        if (ramFile != null)
+            try (OutputStream s = new FileOutputStream(ramFile)) {
+                s.write(ram);
+            }
+    }
+
+    private static long hash(LcdImage image) {
+
+        byte[] colors = new byte[image.getWidth() * image.getHeight()];
+        image.copyColors(colors);
+        CRC32 crc = new CRC32();
+        crc.update(colors);
+        return crc.getValue();
+    }
+
+    private static List<Action> readScript(File file) throws IOException {
+
+        List<Action> actions = new ArrayList<>();
+        long previous = 0;
+
+        for (String line : Files.readAllLines(file.toPath())) {
+
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            String[] parts = line.split("\\s+");
+            Preconditions.checkArgument(parts.length == 3
+                    && (parts[1].equals("press")
+                            || parts[1].equals("release")));
+
+            long cycle = Long.parseLong(parts[0]);
+            Preconditions.checkArgument(cycle >= previous);
+            previous = cycle;
+
+            actions.add(new Action(cycle, Key.valueOf(parts[2]),
+                    parts[1].equals("press")));
+        }
+        return actions;
+    }
+}
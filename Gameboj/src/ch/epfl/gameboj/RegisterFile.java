@@ -51,6 +51,19 @@ public final class RegisterFile<E extends Register> {
         banc8[reg.index()] = Preconditions.checkBits8(newValue);
     }
 
+    /**
+     * comme set, pour une valeur que l'appelant a déjà vérifiée
+     * 
+     * @param reg
+     *            registre dont le contenu est à changer
+     * @param newValue
+     *            valeur 8 bits à mettre dans le registre
+     */
+    public void setUnchecked(E reg, int newValue) {
+
+        banc8[reg.index()] = newValue;
+    }
+
     /**
      * teste le bit donné dans le registre
      * 
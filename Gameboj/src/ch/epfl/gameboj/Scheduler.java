@@ -0,0 +1,68 @@
+package ch.epfl.gameboj;
+
+import java.util.Objects;
+
+import ch.epfl.gameboj.component.Clocked;
+
+/**
+ * @author Alvaro Cauderan ( 282186)
+ * @author Gauthier Boeshertz (283192)
+ *
+ *         Ordonnanceur qui permet à la gameboy de sauter directement au
+ *         prochain cycle durant lequel au moins un des composants a du travail,
+ *         au lieu de les appeler à chaque cycle
+ */
+public final class Scheduler {
+
+    private final Clocked[] components;
+
+    /**
+     * Construit un ordonnanceur pour les composants donnés, qui seront appelés
+     * dans l'ordre donné à chaque cycle simulé
+     *
+     * @param components
+     *            les composants pilotés par l'horloge
+     * @throws NullPointerException
+     *             si un des composants est nul
+     */
+    public Scheduler(Clocked... components) {
+
+        this.components = components.clone();
+        for (Clocked c : this.components)
+            Objects.requireNonNull(c);
+    }
+
+    /**
+     * retourne le premier cycle, supérieur ou égal au cycle donné, durant
+     * lequel au moins un des composants a du travail
+     *
+     * @param cycle
+     *            le premier cycle qui n'a pas encore été simulé
+     * @return le prochain cycle à simuler, ou Long.MAX_VALUE si aucun
+     *         composant n'a de travail
+     */
+    public long nextEventCycle(long cycle) {
+
+        long next = Long.MAX_VALUE;
+        for (Clocked c : components)
+            next = Math.min(next, c.nextEventCycle(cycle));
+
+        return next;
+    }
+
+    /**
+     * fait évoluer durant le cycle donné les composants qui ont du travail à
+     * ce cycle. Chacun est interrogé juste avant d'être appelé, afin de tenir
+     * compte de ce que les composants précédents viennent de faire (par
+     * exemple une interruption qui réveille le processeur).
+     *
+     * @param cycle
+     *            le cycle à simuler
+     */
+    public void cycle(long cycle) {
+
+        for (Clocked c : components)
+            if (c.nextEventCycle(cycle) <= cycle)
+                c.cycle(cycle);
+    }
+}
@@ -0,0 +1,154 @@
+package ch.epfl.gameboj.bits;
+
+import ch.epfl.gameboj.Preconditions;
+
+/**
+ * @author Alvaro Cauderan ( 282186)
+ * @author Gauthier Boeshertz (283192)
+ *
+ *         Opérations sur des lignes de pixels représentées par trois plans de
+ *         bits (poids fort, poids faible et opacité). Chaque opération traite
+ *         les trois plans en une seule passe, bloc de 32 bits par bloc de 32
+ *         bits, au lieu d'enchaîner des opérations élémentaires sur des
+ *         vecteurs intermédiaires.
+ */
+public final class BitPlanes {
+
+    /**
+     * fait que la classe ne soit pas instanciable
+     */
+    private BitPlanes() {
+    }
+
+    /**
+     * transforme en place les couleurs des pixels selon la palette donnée, la
+     * couleur i devenant la couleur codée par les bits 2i et 2i+1 de la
+     * palette
+     * 
+     * @param msb
+     *            le plan des bits de poids fort
+     * @param lsb
+     *            le plan des bits de poids faible
+     * @param palette
+     *            la palette
+     * @throws IllegalArgumentException
+     *             si les plans ne sont pas de même taille ou si la palette
+     *             n'est pas une valeur de 8 bits
+     */
+    public static void mapColors(MutableBitVector msb, MutableBitVector lsb,
+            int palette) {
+
+        Preconditions.checkBits8(palette);
+        int[] m = msb.words(), l = lsb.words();
+        BitVector.checkSameSize(m, l);
+
+        // Pour chaque plan, masque (0 ou -1) des couleurs qui y ont un 1
+        int l0 = -(palette & 1), m0 = -(palette >> 1 & 1);
+        int l1 = -(palette >> 2 & 1), m1 = -(palette >> 3 & 1);
+        int l2 = -(palette >> 4 & 1), m2 = -(palette >> 5 & 1);
+        int l3 = -(palette >> 6 & 1), m3 = -(palette >> 7 & 1);
+
+        for (int i = 0; i < m.length; i++) {
+
+            int hi = m[i], lo = l[i];
+            int c0 = ~(hi | lo), c1 = lo & ~hi, c2 = hi & ~lo, c3 = hi & lo;
+
+            m[i] = (c0 & m0) | (c1 & m1) | (c2 & m2) | (c3 & m3);
+            l[i] = (c0 & l0) | (c1 & l1) | (c2 & l2) | (c3 & l3);
+        }
+    }
+
+    /**
+     * place une ligne au-dessus d'une autre, en place : là où l'opacité donnée
+     * vaut 1, les couleurs du dessous sont remplacées par celles du dessus, et
+     * l'opacité du dessous devient le "ou" des deux
+     * 
+     * @param msb
+     *            le plan des bits de poids fort du dessous
+     * @param lsb
+     *            le plan des bits de poids faible du dessous
+     * @param opacity
+     *            le plan d'opacité du dessous
+     * @param upMsb
+     *            le plan des bits de poids fort du dessus
+     * @param upLsb
+     *            le plan des bits de poids faible du dessus
+     * @param upOpacity
+     *            l'opacité à utiliser pour le dessus
+     * @throws IllegalArgumentException
+     *             si les plans ne sont pas tous de même taille
+     */
+    public static void below(MutableBitVector msb, MutableBitVector lsb,
+            MutableBitVector opacity, MutableBitVector upMsb,
+            MutableBitVector upLsb, MutableBitVector upOpacity) {
+
+        int[] m = msb.words(), l = lsb.words(), o = opacity.words();
+        int[] um = upMsb.words(), ul = upLsb.words(), uo = upOpacity.words();
+        checkSameSizes(m, l, o, um, ul, uo);
+
+        for (int i = 0; i < m.length; i++) {
+
+            int op = uo[i];
+            m[i] = (m[i] & ~op) | (um[i] & op);
+            l[i] = (l[i] & ~op) | (ul[i] & op);
+            o[i] |= op;
+        }
+    }
+
+    /**
+     * joint deux lignes, en place : les pixels d'index supérieur ou égal à
+     * l'index donné sont remplacés, dans les trois plans, par ceux de l'autre
+     * ligne
+     * 
+     * @param msb
+     *            le plan des bits de poids fort de la ligne modifiée
+     * @param lsb
+     *            le plan des bits de poids faible de la ligne modifiée
+     * @param opacity
+     *            le plan d'opacité de la ligne modifiée
+     * @param otherMsb
+     *            le plan des bits de poids fort de l'autre ligne
+     * @param otherLsb
+     *            le plan des bits de poids faible de l'autre ligne
+     * @param otherOpacity
+     *            le plan d'opacité de l'autre ligne
+     * @param index
+     *            l'index du premier pixel pris dans l'autre ligne
+     * @throws IllegalArgumentException
+     *             si les plans ne sont pas tous de même taille ou si l'index
+     *             n'est pas compris entre 0 et leur taille
+     */
+    public static void join(MutableBitVector msb, MutableBitVector lsb,
+            MutableBitVector opacity, MutableBitVector otherMsb,
+            MutableBitVector otherLsb, MutableBitVector otherOpacity,
+            int index) {
+
+        int[] m = msb.words(), l = lsb.words(), o = opacity.words();
+        int[] om = otherMsb.words(), ol = otherLsb.words(),
+                oo = otherOpacity.words();
+        checkSameSizes(m, l, o, om, ol, oo);
+        Preconditions.checkArgument(index >= 0 && index <= msb.size());
+
+        int first = index >>> 5;
+        int partial = index & 31;
+
+        for (int i = first; i < m.length; i++) {
+
+            int mask = (i == first) ? -1 << partial : -1;
+            m[i] = (m[i] & ~mask) | (om[i] & mask);
+            l[i] = (l[i] & ~mask) | (ol[i] & mask);
+            o[i] = (o[i] & ~mask) | (oo[i] & mask);
+        }
+    }
+
+    /**
+     * Vérifie que tous les plans ont la même taille
+     */
+    private static void checkSameSizes(int[] a, int[] b, int[] c, int[] d,
+            int[] e, int[] f) {
+
+        Preconditions.checkArgument(a.length == b.length
+                && a.length == c.length && a.length == d.length
+                && a.length == e.length && a.length == f.length);
+    }
+}
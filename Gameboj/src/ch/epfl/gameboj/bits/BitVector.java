@@ -110,12 +110,26 @@ public final class BitVector {
     public BitVector not() {
 
         int[] newVector = new int[vector.length];
+        not(vector, newVector);
+        return new BitVector(newVector);
 
-        for (int i = 0; i < vector.length; i++)
-            newVector[i] = ~vector[i];
+    }
 
-        return new BitVector(newVector);
+    /**
+     * écrit le complément du vecteur dans le vecteur modifiable donné, sans
+     * allouer de nouveau vecteur
+     * 
+     * @param dest
+     *            le vecteur dans lequel écrire le résultat
+     * @return le vecteur dest
+     * @throws IllegalArgumentException
+     *             si les deux vecteurs ne sont pas de taille égales
+     */
+    public MutableBitVector notInto(MutableBitVector dest) {
 
+        checkSameSize(vector, dest.words());
+        not(vector, dest.words());
+        return dest;
     }
 
     /**
@@ -135,12 +149,29 @@ public final class BitVector {
                 .checkArgument(!(this.vector.length != vector.vector.length));
 
         int[] newVector = new int[this.vector.length];
+        and(this.vector, vector.vector, newVector);
+        return new BitVector(newVector);
 
-        for (int i = 0; i < this.vector.length; i++)
-            newVector[i] = vector.vector[i] & this.vector[i];
+    }
 
-        return new BitVector(newVector);
+    /**
+     * écrit le "et" bit à bit du vecteur et du vecteur donné dans le vecteur
+     * modifiable donné, sans allouer de nouveau vecteur
+     * 
+     * @param vector
+     *            vecteur avec lequel l'opération "et" est faite
+     * @param dest
+     *            le vecteur dans lequel écrire le résultat
+     * @return le vecteur dest
+     * @throws IllegalArgumentException
+     *             si les vecteurs ne sont pas de taille égales
+     */
+    public MutableBitVector andInto(BitVector vector, MutableBitVector dest) {
 
+        checkSameSize(this.vector, vector.vector);
+        checkSameSize(this.vector, dest.words());
+        and(this.vector, vector.vector, dest.words());
+        return dest;
     }
 
     /**
@@ -160,12 +191,29 @@ public final class BitVector {
                 .checkArgument(!(this.vector.length != vector.vector.length));
 
         int[] newVector = new int[this.vector.length];
+        or(this.vector, vector.vector, newVector);
+        return new BitVector(newVector);
 
-        for (int i = 0; i < this.vector.length; i++)
-            newVector[i] = this.vector[i] | vector.vector[i];
+    }
 
-        return new BitVector(newVector);
+    /**
+     * écrit le "ou" bit à bit du vecteur et du vecteur donné dans le vecteur
+     * modifiable donné, sans allouer de nouveau vecteur
+     * 
+     * @param vector
+     *            vecteur avec lequel l'opération "ou" est faite
+     * @param dest
+     *            le vecteur dans lequel écrire le résultat
+     * @return le vecteur dest
+     * @throws IllegalArgumentException
+     *             si les vecteurs ne sont pas de taille égales
+     */
+    public MutableBitVector orInto(BitVector vector, MutableBitVector dest) {
 
+        checkSameSize(this.vector, vector.vector);
+        checkSameSize(this.vector, dest.words());
+        or(this.vector, vector.vector, dest.words());
+        return dest;
     }
 
     /**
@@ -184,31 +232,26 @@ public final class BitVector {
         checkSize(size);
 
         int[] a = new int[size >>> 5];
+        extractZeroExtended(vector, index, a);
+        return new BitVector(a);
 
-        int startBlock = Math.floorDiv(index, SIZE_OF_BITVECTOR_BLOCK);
-        int startIndex = Math.floorMod(index, SIZE_OF_BITVECTOR_BLOCK);
-
-        for (int i = 0; i < size >>> 5; i++) {
-
-            boolean outOfBoundsB1 = (startBlock + i) < 0
-                    | (startBlock + i) > (vector.length - 1);
-
-            boolean outOfBoundsB2 = (startBlock + i + 1) < 0 | startIndex == 0
-                    | (startBlock + i + 1) > (vector.length - 1);
-
-            int firstBlock = outOfBoundsB1 ? 0b0
-                    : vector[startBlock + i] >>> startIndex;
-
-            int SecondBlock = outOfBoundsB2 ? 0b0
-                    : vector[startBlock + i + 1] << SIZE_OF_BITVECTOR_BLOCK
-                            - startIndex;
-
-            a[i] = firstBlock | SecondBlock;
-
-        }
+    }
 
-        return new BitVector(a);
+    /**
+     * écrit dans le vecteur modifiable donné l'extraction, de la taille de
+     * celui-ci, de l'extension par 0 du vecteur
+     * 
+     * @param index
+     *            donne l'index du début de l'extraction
+     * @param dest
+     *            le vecteur dans lequel écrire le résultat
+     * @return le vecteur dest
+     */
+    public MutableBitVector extractZeroExtendedInto(int index,
+            MutableBitVector dest) {
 
+        extractZeroExtended(vector, index, dest.words());
+        return dest;
     }
 
     /**
@@ -227,36 +270,26 @@ public final class BitVector {
 
         checkSize(size);
         int[] a = new int[size / SIZE_OF_BITVECTOR_BLOCK];
-        int startBlock = Math.floorDiv(index, SIZE_OF_BITVECTOR_BLOCK);
-        int startIndex = Math.floorMod(index, SIZE_OF_BITVECTOR_BLOCK);
-
-        for (int i = 0; i < size >>> 5; i++) {
-
-            boolean outOfBoundsB1L = (startBlock + i) < 0;
-
-            boolean outOfBoundsB2L = (startBlock + i + 1) > (vector.length - 1);
-
-            int firstBlock = outOfBoundsB1L
-                    ? vector[Math.floorMod(startBlock + i,
-                            vector.length)] >>> startIndex
-                    : vector[(startBlock + i) % vector.length] >>> startIndex;
-
-            int SecondBlock = outOfBoundsB2L
-                    ? vector[Math.floorMod(startBlock + i + 1,
-                            vector.length)] << SIZE_OF_BITVECTOR_BLOCK
-                                    - startIndex
-                    : vector[(startBlock + i + 1)
-                            % vector.length] << SIZE_OF_BITVECTOR_BLOCK
-                                    - startIndex;
-
-            SecondBlock = (startIndex == 0) ? 0 : SecondBlock;
-
-            a[i] = firstBlock | SecondBlock;
+        extractWrapped(vector, index, a);
+        return new BitVector(a);
 
-        }
+    }
 
-        return new BitVector(a);
+    /**
+     * écrit dans le vecteur modifiable donné l'extraction, de la taille de
+     * celui-ci, de l'extension par enroulement du vecteur
+     * 
+     * @param index
+     *            donne l'index du début de l'extraction
+     * @param dest
+     *            le vecteur dans lequel écrire le résultat
+     * @return le vecteur dest
+     */
+    public MutableBitVector extractWrappedInto(int index,
+            MutableBitVector dest) {
 
+        extractWrapped(vector, index, dest.words());
+        return dest;
     }
 
     /**
@@ -359,6 +392,128 @@ public final class BitVector {
         return extractZeroExtended(-shift, size());
     }
 
+    /**
+     * écrit le vecteur décalé de la distance donnée dans le vecteur
+     * modifiable donné
+     * 
+     * @param shift
+     *            donne la distance, vers la droite si elle est positive
+     * @param dest
+     *            le vecteur dans lequel écrire le résultat
+     * @return le vecteur dest
+     * @throws IllegalArgumentException
+     *             si les deux vecteurs ne sont pas de taille égales
+     */
+    public MutableBitVector shiftInto(int shift, MutableBitVector dest) {
+
+        checkSameSize(vector, dest.words());
+        return extractZeroExtendedInto(-shift, dest);
+    }
+
+    /**
+     * Retourne le tableau des blocs du vecteur, qui ne doit pas être modifié
+     * 
+     * @return les blocs de 32 bits du vecteur
+     */
+    int[] words() {
+        return vector;
+    }
+
+    /**
+     * Construit un vecteur qui utilise directement le tableau donné
+     * 
+     * @param words
+     *            les blocs de 32 bits du vecteur, qui ne doivent plus être
+     *            modifiés
+     * @return le vecteur
+     */
+    static BitVector wrap(int[] words) {
+        return new BitVector(words);
+    }
+
+    /**
+     * Vérifie que deux tableaux de blocs ont la même taille
+     */
+    static void checkSameSize(int[] a, int[] b) {
+
+        Preconditions.checkArgument(a.length == b.length);
+    }
+
+    /**
+     * Écrit dans dest le complément de src (dest peut être src)
+     */
+    static void not(int[] src, int[] dest) {
+
+        for (int i = 0; i < dest.length; i++)
+            dest[i] = ~src[i];
+    }
+
+    /**
+     * Écrit dans dest le "et" bit à bit de a et b (dest peut être a ou b)
+     */
+    static void and(int[] a, int[] b, int[] dest) {
+
+        for (int i = 0; i < dest.length; i++)
+            dest[i] = a[i] & b[i];
+    }
+
+    /**
+     * Écrit dans dest le "ou" bit à bit de a et b (dest peut être a ou b)
+     */
+    static void or(int[] a, int[] b, int[] dest) {
+
+        for (int i = 0; i < dest.length; i++)
+            dest[i] = a[i] | b[i];
+    }
+
+    /**
+     * Écrit dans dest l'extraction de l'extension par 0 de src à partir de
+     * l'index donné. Les blocs sont parcourus dans l'ordre qui permet à dest
+     * d'être src, ce qui sert aux décalages en place.
+     */
+    static void extractZeroExtended(int[] src, int index, int[] dest) {
+
+        int startBlock = Math.floorDiv(index, Integer.SIZE);
+        int startIndex = Math.floorMod(index, Integer.SIZE);
+        boolean ascending = startBlock >= 0;
+
+        for (int n = 0; n < dest.length; n++) {
+
+            int i = ascending ? n : dest.length - 1 - n;
+            int b1 = startBlock + i;
+            int b2 = b1 + 1;
+
+            int firstBlock = (b1 < 0 || b1 >= src.length) ? 0
+                    : src[b1] >>> startIndex;
+            int secondBlock = (startIndex == 0 || b2 < 0 || b2 >= src.length)
+                    ? 0
+                    : src[b2] << Integer.SIZE - startIndex;
+
+            dest[i] = firstBlock | secondBlock;
+        }
+    }
+
+    /**
+     * Écrit dans dest l'extraction de l'extension par enroulement de src à
+     * partir de l'index donné (dest ne doit pas être src)
+     */
+    static void extractWrapped(int[] src, int index, int[] dest) {
+
+        int startBlock = Math.floorDiv(index, Integer.SIZE);
+        int startIndex = Math.floorMod(index, Integer.SIZE);
+
+        for (int i = 0; i < dest.length; i++) {
+
+            int firstBlock = src[Math.floorMod(startBlock + i, src.length)]
+                    >>> startIndex;
+            int secondBlock = startIndex == 0 ? 0
+                    : src[Math.floorMod(startBlock + i + 1, src.length)]
+                            << Integer.SIZE - startIndex;
+
+            dest[i] = firstBlock | secondBlock;
+        }
+    }
+
     /**
      * 
      * 
@@ -0,0 +1,243 @@
+package ch.epfl.gameboj.bits;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import ch.epfl.gameboj.Preconditions;
+
+/**
+ * @author Alvaro Cauderan ( 282186)
+ * @author Gauthier Boeshertz (283192)
+ *
+ *         Vecteur de bits modifiable, dont la taille doit etre un multiple de
+ *         32. Il sert de vecteur de travail réutilisé d'une ligne à l'autre :
+ *         toutes ses opérations modifient le vecteur en place et le
+ *         retournent, sans rien allouer.
+ */
+public final class MutableBitVector {
+
+    private final int[] vector;
+
+    /**
+     * Construit un vecteur modifiable dont tous les bits valent 0
+     * 
+     * @param size
+     *            taille du vecteur
+     * @throws IllegalArgumentException
+     *             si la taille n'est pas un multiple de 32
+     */
+    public MutableBitVector(int size) {
+
+        Preconditions.checkArgument(size % 32 == 0 && size >= 0);
+        vector = new int[size >>> 5];
+    }
+
+    /**
+     * retourne la taille du vecteur
+     * 
+     * @return la taille du vecteur
+     */
+    public int size() {
+        return vector.length << 5;
+    }
+
+    /**
+     * teste le bit d'index donné
+     * 
+     * @param index
+     *            donne l'index du bit à tester
+     * @return true si le bit vaut 1 et false sinon
+     * @throws IndexOutOfBoundsException
+     *             si l'index n'est pas compris entre 0 et la taille
+     */
+    public boolean testBit(int index) {
+
+        Objects.checkIndex(index, size());
+        return Bits.test(vector[index >>> 5], index & 31);
+    }
+
+    /**
+     * Retourne le tableau des blocs du vecteur
+     * 
+     * @return les blocs de 32 bits du vecteur
+     */
+    int[] words() {
+        return vector;
+    }
+
+    /**
+     * met tous les bits du vecteur à la valeur donnée
+     * 
+     * @param state
+     *            la valeur des bits
+     * @return le vecteur
+     */
+    public MutableBitVector fill(boolean state) {
+
+        Arrays.fill(vector, state ? -1 : 0);
+        return this;
+    }
+
+    /**
+     * Définit la valeur d'un octet désigné par son index
+     * 
+     * @param index
+     *            donne l'index de l'octet à changer
+     * @param octet
+     *            donne l'octet à mettre
+     * @return le vecteur
+     * @throws IllegalArgumentException
+     *             si la valeur n'est pas une valeur de 8 bits
+     * @throws IndexOutOfBoundsException
+     *             si l'index ne désigne pas un octet du vecteur
+     */
+    public MutableBitVector setByte(int index, int octet) {
+
+        Preconditions.checkBits8(octet);
+        Objects.checkIndex(index, vector.length << 2);
+
+        int shift = (index & 0b11) << 3;
+        int block = index >>> 2;
+        vector[block] = (vector[block] & ~(0xFF << shift)) | (octet << shift);
+        return this;
+    }
+
+    /**
+     * copie le vecteur donné dans le vecteur
+     * 
+     * @param that
+     *            le vecteur à copier
+     * @return le vecteur
+     * @throws IllegalArgumentException
+     *             si les deux vecteurs ne sont pas de taille égales
+     */
+    public MutableBitVector set(BitVector that) {
+
+        BitVector.checkSameSize(vector, that.words());
+        System.arraycopy(that.words(), 0, vector, 0, vector.length);
+        return this;
+    }
+
+    /**
+     * copie le vecteur modifiable donné dans le vecteur
+     * 
+     * @param that
+     *            le vecteur à copier
+     * @return le vecteur
+     * @throws IllegalArgumentException
+     *             si les deux vecteurs ne sont pas de taille égales
+     */
+    public MutableBitVector set(MutableBitVector that) {
+
+        BitVector.checkSameSize(vector, that.vector);
+        System.arraycopy(that.vector, 0, vector, 0, vector.length);
+        return this;
+    }
+
+    /**
+     * remplace le vecteur par son complément
+     * 
+     * @return le vecteur
+     */
+    public MutableBitVector not() {
+
+        BitVector.not(vector, vector);
+        return this;
+    }
+
+    /**
+     * remplace le vecteur par le "et" bit à bit de lui-même et du vecteur
+     * donné
+     * 
+     * @param that
+     *            le vecteur avec lequel faire l'opération
+     * @return le vecteur
+     * @throws IllegalArgumentException
+     *             si les deux vecteurs ne sont pas de taille égales
+     */
+    public MutableBitVector and(MutableBitVector that) {
+
+        BitVector.checkSameSize(vector, that.vector);
+        BitVector.and(vector, that.vector, vector);
+        return this;
+    }
+
+    /**
+     * remplace le vecteur par le "ou" bit à bit de lui-même et du vecteur
+     * donné
+     * 
+     * @param that
+     *            le vecteur avec lequel faire l'opération
+     * @return le vecteur
+     * @throws IllegalArgumentException
+     *             si les deux vecteurs ne sont pas de taille égales
+     */
+    public MutableBitVector or(MutableBitVector that) {
+
+        BitVector.checkSameSize(vector, that.vector);
+        BitVector.or(vector, that.vector, vector);
+        return this;
+    }
+
+    /**
+     * remplace le vecteur par le "et" bit à bit de lui-même et du complément
+     * du vecteur donné, c'est-à-dire met à 0 les bits qui valent 1 dans le
+     * vecteur donné
+     * 
+     * @param that
+     *            le vecteur avec lequel faire l'opération
+     * @return le vecteur
+     * @throws IllegalArgumentException
+     *             si les deux vecteurs ne sont pas de taille égales
+     */
+    public MutableBitVector andNot(MutableBitVector that) {
+
+        BitVector.checkSameSize(vector, that.vector);
+        for (int i = 0; i < vector.length; i++)
+            vector[i] &= ~that.vector[i];
+        return this;
+    }
+
+    /**
+     * décale le vecteur en place de la distance donnée, les bits qui entrent
+     * valant 0
+     * 
+     * @param shift
+     *            donne la distance, vers la droite si elle est positive
+     * @return le vecteur
+     */
+    public MutableBitVector shift(int shift) {
+
+        BitVector.extractZeroExtended(vector, -shift, vector);
+        return this;
+    }
+
+    /**
+     * remplace le vecteur par l'extraction, de sa taille, de l'extension par
+     * enroulement du vecteur donné
+     * 
+     * @param that
+     *            le vecteur dont on extrait les bits, qui doit être différent
+     *            de celui-ci
+     * @param index
+     *            donne l'index du début de l'extraction
+     * @return le vecteur
+     * @throws IllegalArgumentException
+     *             si le vecteur donné est le vecteur lui-même
+     */
+    public MutableBitVector extractWrapped(MutableBitVector that, int index) {
+
+        Preconditions.checkArgument(that != this);
+        BitVector.extractWrapped(that.vector, index, vector);
+        return this;
+    }
+
+    /**
+     * Construit un vecteur immuable ayant le contenu actuel du vecteur
+     * 
+     * @return une copie immuable du vecteur
+     */
+    public BitVector toBitVector() {
+        return BitVector.wrap(vector.clone());
+    }
+}
@@ -14,4 +14,17 @@ public interface Clocked {
     * @param cycle donne le cycle 
     */
     void cycle(long cycle);
+
+    /**
+     * retourne le premier cycle, supérieur ou égal au cycle donné, durant
+     * lequel le composant a du travail à effectuer, ou Long.MAX_VALUE s'il
+     * n'en a plus. Par défaut le composant doit être appelé à chaque cycle.
+     *
+     * @param cycle
+     *            le premier cycle qui n'a pas encore été simulé
+     * @return le prochain cycle où le composant doit être appelé
+     */
+    default long nextEventCycle(long cycle) {
+        return cycle;
+    }
 }
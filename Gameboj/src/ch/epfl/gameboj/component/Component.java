@@ -1,6 +1,7 @@
 package ch.epfl.gameboj.component;
 
 import ch.epfl.gameboj.Bus;
+import ch.epfl.gameboj.component.memory.Ram;
 
 /**
 *@author Alvaro Cauderan ( 282186)
@@ -36,6 +37,63 @@ public interface Component {
      */
     void write(int address, int data);
 
+    /**
+     * comme read, mais sans vérifier l'adresse : réservée au bus, qui l'a
+     * déjà vérifiée. Par défaut elle appelle simplement read.
+     * 
+     * @param address l'adresse, que l'appelant garantit être une valeur 16 bits
+     * @return la valeur stockée à l'adresse donnée, ou NO_DATA
+     */
+    default int readUnchecked(int address) {
+
+        return read(address);
+    }
+
+    /**
+     * comme write, mais sans vérifier l'adresse ni la donnée : réservée au
+     * bus, qui les a déjà vérifiées. Par défaut elle appelle simplement write.
+     * 
+     * @param address l'adresse, que l'appelant garantit être une valeur 16 bits
+     * @param data la donnée, que l'appelant garantit être une valeur 8 bits
+     */
+    default void writeUnchecked(int address, int data) {
+
+        write(address, data);
+    }
+
+    /**
+     * copie d'un bloc, si le composant en est capable, les octets de la plage
+     * d'adresses donnée dans la mémoire donnée. Par défaut le composant n'en
+     * est pas capable et le bus copie alors les octets un à un.
+     * 
+     * @param address l'adresse du premier octet à copier
+     * @param destination la mémoire dans laquelle copier les octets
+     * @param destinationIndex l'index du premier octet écrit dans la mémoire
+     * @param length le nombre d'octets à copier
+     * @return vrai si les octets ont été copiés
+     */
+    default boolean copyTo(int address, Ram destination, int destinationIndex,
+            int length) {
+
+        return false;
+    }
+
+    /**
+     * retourne le premier cycle, supérieur ou égal au cycle donné, à partir
+     * duquel la valeur lue à l'adresse donnée peut changer sans que le
+     * processeur n'écrive sur le bus. Par défaut elle peut changer à tout
+     * moment ; une mémoire ou un registre qui ne change qu'à la suite d'une
+     * écriture retourne Long.MAX_VALUE.
+     * 
+     * @param address l'adresse lue
+     * @param cycle le cycle à partir duquel la valeur est observée
+     * @return le premier cycle où la valeur peut changer
+     */
+    default long nextChangeCycle(int address, long cycle) {
+
+        return cycle;
+    }
+
     /**
      * attache le composant au bus donné, en appelant simplement la méthode attach de celui-ci
      * @param le bus auquel   le composé sera attaché
@@ -3,6 +3,7 @@ package ch.epfl.gameboj.component;
 import java.util.Objects;
 
 import ch.epfl.gameboj.AddressMap;
+import ch.epfl.gameboj.Bus;
 import ch.epfl.gameboj.Preconditions;
 import ch.epfl.gameboj.bits.Bit;
 import ch.epfl.gameboj.bits.Bits;
@@ -123,6 +124,30 @@ public final class Joypad implements Component {
         return returnn;
     }
 
+    /**
+     * le registre P1 ne change que lorsqu'on y écrit ou lorsqu'une touche est
+     * pressée ou relâchée, ce qui n'arrive qu'entre deux appels à
+     * GameBoy.runUntil
+     * 
+     * @see ch.epfl.gameboj.component.Component#nextChangeCycle(int, long)
+     */
+    @Override
+    public long nextChangeCycle(int address, long cycle) {
+
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * (non-Javadoc)
+     * 
+     * @see ch.epfl.gameboj.component.Component#attachTo(Bus bus)
+     */
+    @Override
+    public void attachTo(Bus bus) {
+
+        bus.attach(this, AddressMap.REG_P1, AddressMap.REG_P1 + 1);
+    }
+
     /**
      * (non-Javadoc)
      * 
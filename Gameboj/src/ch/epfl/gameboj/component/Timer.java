@@ -18,6 +18,8 @@ public final class Timer implements Component, Clocked {
     private int writeMinData = 0;
     private int writeMaxData = 255;
 
+    private long lastCycle = -1;
+
     Bus bus;
     Cpu timer;
 
@@ -28,22 +30,99 @@ public final class Timer implements Component, Clocked {
 
     }
 
+    /**
+     * fait évoluer le timer jusqu'au cycle donné (inclus), en rattrapant les
+     * cycles qui n'ont pas été simulés depuis la dernière mise à jour
+     * 
+     * @param cycle
+     *            le cycle jusqu'auquel le timer doit évoluer
+     */
     @Override
-
     public void cycle(long cycle) {
 
-        boolean s0 = state();
-        regDIV = Bits.clip(16, regDIV + 4);
-        incIfChange(s0);
+        catchUp(cycle);
+    }
+
+    /**
+     * met le timer à jour jusqu'au cycle donné (inclus). Le compteur principal
+     * est avancé d'un coup, et le nombre de fronts descendants du bit
+     * sélectionné par TAC est ajouté au compteur secondaire, qui est rechargé
+     * depuis TMA et lève une interruption à chaque débordement.
+     * 
+     * @param cycle
+     *            le cycle jusqu'auquel le timer doit évoluer
+     */
+    private void catchUp(long cycle) {
 
+        if (cycle <= lastCycle)
+            return;
+
+        long elapsed = cycle - lastCycle;
+        lastCycle = cycle;
+
+        long newDIV = regDIV + 4 * elapsed;
+
+        if (Bits.test(regTAC, 2)) {
+
+            int shift = divBitIndex() + 1;
+            long fallingEdges = (newDIV >> shift) - (regDIV >> shift);
+
+            regDIV = (int) (newDIV & 0xFFFF);
+            addToTIMA(fallingEdges);
+
+        } else {
+
+            regDIV = (int) (newDIV & 0xFFFF);
+        }
+    }
+
+    /**
+     * met le timer à jour jusqu'au cycle durant lequel le processeur accède à
+     * ses registres
+     */
+    private void sync() {
+
+        catchUp(timer.currentCycle());
+    }
+
+    /**
+     * retourne le cycle durant lequel le compteur secondaire débordera (et
+     * lèvera une interruption), ou Long.MAX_VALUE si celui-ci est désactivé.
+     * Les valeurs intermédiaires des compteurs sont calculées à la demande.
+     * 
+     * @see ch.epfl.gameboj.component.Clocked#nextEventCycle(long)
+     */
+    @Override
+    public long nextEventCycle(long cycle) {
+
+        if (!Bits.test(regTAC, 2))
+            return Long.MAX_VALUE;
+
+        int shift = divBitIndex() + 1;
+        long overflowDIV = ((regDIV >> shift) + (0x100 - regTIMA)) << shift;
+
+        return Math.max(cycle, lastCycle + (overflowDIV - regDIV + 3) / 4);
     }
 
     @Override
     public int read(int address) {
 
+        return readUnchecked(Preconditions.checkBits16(address));
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see ch.epfl.gameboj.component.Component#readUnchecked(int)
+     */
+    @Override
+    public int readUnchecked(int address) {
+
         int valueAtAddress;
 
-        switch (Preconditions.checkBits16(address)) {
+        sync();
+
+        switch (address) {
 
         case AddressMap.REG_DIV:
 
@@ -76,6 +155,17 @@ public final class Timer implements Component, Clocked {
 
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see ch.epfl.gameboj.component.Component#attachTo(Bus)
+     */
+    @Override
+    public void attachTo(Bus bus) {
+
+        bus.attach(this, AddressMap.REG_DIV, AddressMap.REG_TAC + 1);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -85,36 +175,47 @@ public final class Timer implements Component, Clocked {
     @Override
     public void write(int address, int data) {
 
-        boolean s0 = state();
-
         if (address < writeMinAddress || address > writeMaxAddress
                 || data < writeMinData || data > writeMaxData) {
 
             throw new IllegalArgumentException();
 
         }
-        switch (Preconditions.checkBits16(address)) {
+        writeUnchecked(address, data);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see ch.epfl.gameboj.component.Component#writeUnchecked(int, int)
+     */
+    @Override
+    public void writeUnchecked(int address, int data) {
+
+        sync();
+        boolean s0 = state();
+
+        switch (address) {
 
         case AddressMap.REG_DIV:
 
-            Preconditions.checkBits8(data);
             regDIV = 0;
             incIfChange(s0);
             break;
 
         case AddressMap.REG_TIMA:
 
-            regTIMA = Preconditions.checkBits8(data);
+            regTIMA = data;
             break;
 
         case AddressMap.REG_TMA:
 
-            regTMA = Preconditions.checkBits8(data);
+            regTMA = data;
             break;
 
         case AddressMap.REG_TAC:
 
-            regTAC = Preconditions.checkBits8(data);
+            regTAC = data;
             incIfChange(s0);
             break;
         }
@@ -122,6 +223,16 @@ public final class Timer implements Component, Clocked {
 
     private boolean state() {
 
+        return Bits.test(regTAC, 2) && Bits.test(regDIV, divBitIndex());
+    }
+
+    /**
+     * retourne l'index du bit du compteur principal sélectionné par TAC
+     * 
+     * @return l'index du bit
+     */
+    private int divBitIndex() {
+
         int divBitIndex = 0;
 
         switch (Bits.clip(2, regTAC)) {
@@ -151,24 +262,41 @@ public final class Timer implements Component, Clocked {
             break;
         }
 
-        return Bits.test(regTAC, 2) && Bits.test(regDIV, divBitIndex);
+        return divBitIndex;
     }
 
     private void incIfChange(boolean previousState) {
 
-        if (previousState & !(state())) {
+        if (previousState & !(state()))
+            incTIMA();
+    }
+
+    private void incTIMA() {
 
-            if (read(AddressMap.REG_TIMA) == 0xFF) {
+        addToTIMA(1);
+    }
+
+    /**
+     * incrémente le compteur secondaire du nombre donné d'unités. Le premier
+     * débordement le recharge depuis TMA, les suivants se répètent avec une
+     * période de 0x100 - TMA incréments ; chacun lève l'interruption du timer.
+     * 
+     * @param increments
+     *            donne le nombre d'incréments, positif ou nul
+     */
+    private void addToTIMA(long increments) {
 
-                timer.requestInterrupt(Interrupt.TIMER);
+        long untilOverflow = 0x100 - regTIMA;
 
-                write(AddressMap.REG_TIMA, read(AddressMap.REG_TMA));
+        if (increments < untilOverflow) {
 
-            } else {
+            regTIMA += (int) increments;
 
-                write(AddressMap.REG_TIMA, read(AddressMap.REG_TIMA) + 1);
-            }
+        } else {
 
+            timer.requestInterrupt(Interrupt.TIMER);
+            regTIMA = regTMA + (int) ((increments - untilOverflow)
+                    % (0x100 - regTMA));
         }
     }
 }
@@ -10,6 +10,7 @@ import java.util.HashMap;
 import java.util.Objects;
 
 import ch.epfl.gameboj.AddressMap;
+import ch.epfl.gameboj.Bus;
 import ch.epfl.gameboj.Preconditions;
 import ch.epfl.gameboj.component.Component;
 import ch.epfl.gameboj.component.memory.Rom;
@@ -123,8 +124,28 @@ public final class Cartridge implements Component {
         cartouche.setByteArray(byteArray);
     }
 
+    /**
+     * fait lire directement par le bus donné les banques de mémoire morte
+     * actuellement visibles ; à rappeler après chaque écriture dans la
+     * cartouche, qui peut changer de banque
+     * 
+     * @param bus
+     *            le bus qui lira la mémoire morte
+     */
+    public void mapTo(Bus bus) {
+        cartouche.mapTo(bus);
+    }
+
     public interface MBC extends Component, Saveable {
 
+        /**
+         * fait lire directement par le bus donné les banques de mémoire
+         * morte visibles de 0 à 7FFF
+         * 
+         * @param bus
+         *            le bus qui lira la mémoire morte
+         */
+        void mapTo(Bus bus);
     }
 
     public interface Saveable {
@@ -2,6 +2,7 @@ package ch.epfl.gameboj.component.cartridge;
 
 import java.lang.ModuleLayer.Controller;
 
+import ch.epfl.gameboj.Bus;
 import ch.epfl.gameboj.Preconditions;
 import ch.epfl.gameboj.component.Component;
 import ch.epfl.gameboj.component.cartridge.Cartridge.MBC;
@@ -68,6 +69,16 @@ public final class MBC0 implements MBC {
     public void write(int address, int data) {
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see ch.epfl.gameboj.component.cartridge.Cartridge.MBC#mapTo(Bus)
+     */
+    @Override
+    public void mapTo(Bus bus) {
+        controller.mapTo(bus, 0, 0, controller.size());
+    }
+
     @Override
     public byte[] getByteArray() {
         // TODO Auto-generated method stub
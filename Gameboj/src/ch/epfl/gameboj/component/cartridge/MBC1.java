@@ -3,6 +3,7 @@ package ch.epfl.gameboj.component.cartridge;
 import static ch.epfl.gameboj.Preconditions.checkBits16;
 import static ch.epfl.gameboj.Preconditions.checkBits8;
 
+import ch.epfl.gameboj.Bus;
 import ch.epfl.gameboj.bits.Bits;
 import ch.epfl.gameboj.component.Component;
 import ch.epfl.gameboj.component.cartridge.Cartridge.MBC;
@@ -11,6 +12,7 @@ import ch.epfl.gameboj.component.memory.Rom;
 
 public final class MBC1 implements MBC {
     private static final int RAM_ENABLE = 0xA;
+    private static final int BANK_SIZE = 0x4000;
 
     private enum Mode { MODE_0, MODE_1 };
 
@@ -87,6 +89,14 @@ public final class MBC1 implements MBC {
         return ((msb2() << 13) | Bits.clip(13, b_12_0)) & ramMask;
     }
 
+    @Override
+    public void mapTo(Bus bus) {
+        if (rom.size() < BANK_SIZE)
+            return;
+        rom.mapTo(bus, 0, romAddress(msb2(), 0, 0), BANK_SIZE);
+        rom.mapTo(bus, BANK_SIZE, romAddress(ramRom2, romLsb5, 0), BANK_SIZE);
+    }
+
     @Override
     public byte[] getByteArray() {
         // TODO Auto-generated method stub
@@ -1,6 +1,11 @@
 
 package ch.epfl.gameboj.component.cpu;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongUnaryOperator;
+
 import ch.epfl.gameboj.component.cpu.Alu;
 import ch.epfl.gameboj.component.cpu.Alu.Flag;
 import ch.epfl.gameboj.component.cpu.Alu.RotDir;
@@ -9,7 +14,6 @@ import ch.epfl.gameboj.AddressMap;
 import ch.epfl.gameboj.Bus;
 import ch.epfl.gameboj.Preconditions;
 import ch.epfl.gameboj.Register;
-import ch.epfl.gameboj.RegisterFile;
 import ch.epfl.gameboj.bits.Bit;
 import ch.epfl.gameboj.bits.Bits;
 import ch.epfl.gameboj.component.Clocked;
@@ -25,17 +29,54 @@ public final class Cpu implements Component, Clocked {
             Opcode.Kind.DIRECT);
     private static final Opcode[] PREFIXED_OPCODE_TABLE = buildOpcodeTable(
             Opcode.Kind.PREFIXED);
+    private static final Handler[] DIRECT_HANDLER_TABLE = buildHandlerTable(
+            Opcode.Kind.DIRECT, false);
+    private static final Handler[] PREFIXED_HANDLER_TABLE = buildHandlerTable(
+            Opcode.Kind.PREFIXED, false);
+    private static final Handler[] TABLE_ALU_DIRECT_HANDLER_TABLE =
+            buildHandlerTable(Opcode.Kind.DIRECT, true);
+    private static final Handler[] TABLE_ALU_PREFIXED_HANDLER_TABLE =
+            buildHandlerTable(Opcode.Kind.PREFIXED, true);
 
     private Bus bus;
     private Ram highRam = new Ram(AddressMap.HIGH_RAM_SIZE);
 
     private long nextNonIdleCycle;
+    private long currentCycle = -1;
     private int PC = 0;
     private int SP = 0;
     private int prefixed = 203;
     private boolean IME = false;
     private int IE = 0;
     private int IF = 0;
+    // IF & IE, tenu à jour à chaque changement de l'un des deux registres
+    private int pendingInterrupts = 0;
+    private boolean switchDispatch = false;
+    private boolean blockExecution = false;
+    private Handler[] directHandlers = DIRECT_HANDLER_TABLE;
+    private Handler[] prefixedHandlers = PREFIXED_HANDLER_TABLE;
+    private boolean loopFusion = true;
+    // vrai si une instruction a écrit dans les registres d'entrée/sortie
+    private boolean ioWritten;
+
+    private final Block[] blocks = new Block[0x10000];
+    private final boolean[] codeBytes = new boolean[0x10000];
+    // blocs de chaque moitié de la mémoire morte, par clef de banque
+    private final Map<Integer, Block[]> romLowBlocks = new HashMap<>();
+    private final Map<Integer, Block[]> romHighBlocks = new HashMap<>();
+    private int romLowKey = 0, romHighKey = 0;
+    private Block[] romLow = romBlocks(romLowBlocks, 0);
+    private Block[] romHigh = romBlocks(romHighBlocks, 0);
+    private Block block;
+    private int blockIndex;
+    private int operand;
+
+    // *Boucles d'attente*
+    private LongUnaryOperator idleHorizon;
+    private Block idleBlock;
+    private long idleHeadCycle;
+    private final int[] idleState = new int[10];
+    private long idleLimit;
 
     public enum Reg implements Register {
         A, F, B, C, D, E, H, L
@@ -63,7 +104,59 @@ public final class Cpu implements Component, Clocked {
         V0, V1, ALU, CPU
     };
 
-    private RegisterFile<Register> reg8 = new RegisterFile<>(Reg.values());
+    /**
+     * traitant d'une instruction, spécialisé pour un encoding donné
+     */
+    @FunctionalInterface
+    private interface Handler {
+
+        void execute(Cpu cpu);
+    }
+
+    /**
+     * bloc de base décodé : suite d'instructions consécutives se terminant
+     * par un saut (ou par la fin de la page de 256 octets où il commence),
+     * avec leurs adresses, leurs traitants et leurs opérandes immédiats
+     */
+    private static final class Block {
+
+        private final int[] pcs;
+        private final Handler[] handlers;
+        private final int[] operands;
+        private final boolean idleLoop;
+        private final boolean fusedLoop;
+        private boolean valid = true;
+        private int heat = 0;
+
+        private Block(int[] pcs, Handler[] handlers, int[] operands,
+                boolean idleLoop, boolean fusedLoop) {
+            this.pcs = pcs;
+            this.handlers = handlers;
+            this.operands = operands;
+            this.idleLoop = idleLoop;
+            this.fusedLoop = fusedLoop;
+        }
+    }
+
+    private int A, B, C, D, E, H, L;
+
+    /*
+     * Les fanions sont évalués paresseusement : les instructions
+     * arithmétiques fréquentes (addition, soustraction, incrément, décrément)
+     * mémorisent leurs opérandes et leur résultat, et Z/N/H/C ne sont calculés
+     * que lorsque F est lu ou qu'une condition est testée. Tant que lazyOp
+     * vaut LAZY_NONE, F contient directement les fanions.
+     */
+    private static final int LAZY_NONE = 0, LAZY_ADD = 1, LAZY_SUB = 2,
+            LAZY_INC = 3, LAZY_DEC = 4;
+    private static final int MAX_BLOCK_LENGTH = 256;
+    private static final int HOT_BLOCK_THRESHOLD = 16;
+    private static final int MASK_Z = 0x80, MASK_N = 0x40, MASK_H = 0x20,
+            MASK_C = 0x10;
+
+    private int F;
+    private int lazyOp = LAZY_NONE;
+    private int lazyL, lazyR, lazyX, lazyResult;
 
     public int[] _testGetPcSpAFBCDEHL() {
 
@@ -71,14 +164,14 @@ public final class Cpu implements Component, Clocked {
 
         Regs[0] = PC;
         Regs[1] = SP;
-        Regs[2] = reg8.get(Reg.A);
-        Regs[3] = reg8.get(Reg.F);
-        Regs[4] = reg8.get(Reg.B);
-        Regs[5] = reg8.get(Reg.C);
-        Regs[6] = reg8.get(Reg.D);
-        Regs[7] = reg8.get(Reg.E);
-        Regs[8] = reg8.get(Reg.H);
-        Regs[9] = reg8.get(Reg.L);
+        Regs[2] = reg(Reg.A);
+        Regs[3] = reg(Reg.F);
+        Regs[4] = reg(Reg.B);
+        Regs[5] = reg(Reg.C);
+        Regs[6] = reg(Reg.D);
+        Regs[7] = reg(Reg.E);
+        Regs[8] = reg(Reg.H);
+        Regs[9] = reg(Reg.L);
 
         return Regs;
 
@@ -104,6 +197,835 @@ public final class Cpu implements Component, Clocked {
 
     }
 
+    /**
+     * construit la table des 256 traitants correspondant aux opcodes du genre
+     * donné, les cases des encodages non utilisés restant nulles
+     * 
+     * @param opKind
+     *            donne le genre des opcodes (direct ou préfixé)
+     * @param aluTables
+     *            vrai si les traitants lisent les résultats de l'unité
+     *            arithmétique et logique dans les tables de {@link TableAlu}
+     * @return la table des traitants indexée par l'encodage des opcodes
+     */
+    private static Handler[] buildHandlerTable(Opcode.Kind opKind,
+            boolean aluTables) {
+
+        Handler[] handlerTable = new Handler[256];
+
+        for (Opcode o : Opcode.values()) {
+
+            if (o.kind == opKind)
+
+                handlerTable[o.encoding] = aluTables ? buildTableAluHandler(o)
+                        : buildHandler(o);
+        }
+
+        return handlerTable;
+    }
+
+    /**
+     * construit le traitant spécialisé de l'opcode donné : les registres
+     * opérandes, la longueur et le nombre de cycles sont décodés une fois pour
+     * toutes, et le traitant met lui-même à jour le compteur de programme et
+     * le prochain cycle non oisif
+     * 
+     * @param opcode
+     *            donne l'opcode dont on construit le traitant
+     * @return le traitant de l'opcode donné
+     */
+    private static Handler buildHandler(Opcode opcode) {
+
+        int len = opcode.totalBytes;
+        int cy = opcode.cycles;
+        int cyTaken = opcode.cycles + opcode.additionalCycles;
+
+        Reg r0 = extractReg(opcode, 0);
+        Reg r3 = extractReg(opcode, 3);
+        Reg16 r16 = extractReg16(opcode);
+        RotDir dir = extractDir(opcode);
+        int hlIncrement = extractHlIncrement(opcode);
+        int bitIndex = Bits.extract(opcode.encoding, 3, 3);
+        int cc = Bits.extract(opcode.encoding, 3, 2);
+        boolean bit3 = Bits.test(opcode.encoding, 3);
+        boolean bit4 = Bits.test(opcode.encoding, 4);
+        boolean bit6 = Bits.test(opcode.encoding, 6);
+
+        switch (opcode.family) {
+        case NOP:
+            return c -> c.advance(len, cy);
+
+        case LD_R8_HLR:
+            return c -> {
+                c.setReg(r3, c.read8AtHl());
+                c.advance(len, cy);
+            };
+        case LD_A_HLRU:
+            return c -> {
+                c.A = c.read8AtHl();
+                c.setReg16(Reg16.HL, c.reg16(Reg16.HL) + hlIncrement);
+                c.advance(len, cy);
+            };
+        case LD_A_N8R:
+            return c -> {
+                c.A = c.read8(AddressMap.REGS_START + c.operand);
+                c.advance(len, cy);
+            };
+        case LD_A_CR:
+            return c -> {
+                c.A = c.read8(AddressMap.REGS_START + c.C);
+                c.advance(len, cy);
+            };
+        case LD_A_N16R:
+            return c -> {
+                c.A = c.read8(c.operand);
+                c.advance(len, cy);
+            };
+        case LD_A_BCR:
+            return c -> {
+                c.A = c.read8(c.reg16(Reg16.BC));
+                c.advance(len, cy);
+            };
+        case LD_A_DER:
+            return c -> {
+                c.A = c.read8(c.reg16(Reg16.DE));
+                c.advance(len, cy);
+            };
+        case LD_R8_N8:
+            return c -> {
+                c.setReg(r3, c.operand);
+                c.advance(len, cy);
+            };
+        case LD_R16SP_N16:
+            return c -> {
+                c.setReg16SP(r16, c.operand);
+                c.advance(len, cy);
+            };
+        case POP_R16:
+            return c -> {
+                c.setReg16(r16, c.pop16());
+                c.advance(len, cy);
+            };
+        case LD_HLR_R8:
+            return c -> {
+                c.write8AtHl(c.reg(r0));
+                c.advance(len, cy);
+            };
+        case LD_HLRU_A:
+            return c -> {
+                int hl = c.reg16(Reg16.HL);
+                c.write8AtHl(c.A);
+                c.setReg16(Reg16.HL, Bits.clip(16, hl + hlIncrement));
+                c.advance(len, cy);
+            };
+        case LD_N8R_A:
+            return c -> {
+                c.write8(AddressMap.REGS_START + c.operand,
+                        c.A);
+                c.advance(len, cy);
+            };
+        case LD_CR_A:
+            return c -> {
+                c.write8(AddressMap.REGS_START + c.C,
+                        c.A);
+                c.advance(len, cy);
+            };
+        case LD_N16R_A:
+            return c -> {
+                c.write8(c.operand, c.A);
+                c.advance(len, cy);
+            };
+        case LD_BCR_A:
+            return c -> {
+                c.write8(c.reg16(Reg16.BC), c.A);
+                c.advance(len, cy);
+            };
+        case LD_DER_A:
+            return c -> {
+                c.write8(c.reg16(Reg16.DE), c.A);
+                c.advance(len, cy);
+            };
+        case LD_HLR_N8:
+            return c -> {
+                c.write8AtHl(c.operand);
+                c.advance(len, cy);
+            };
+        case LD_N16R_SP:
+            return c -> {
+                c.write16(c.operand, c.SP);
+                c.advance(len, cy);
+            };
+        case LD_R8_R8:
+            return c -> {
+                c.setReg(r3, c.reg(r0));
+                c.advance(len, cy);
+            };
+        case LD_SP_HL:
+            return c -> {
+                c.SP = c.reg16(Reg16.HL);
+                c.advance(len, cy);
+            };
+        case PUSH_R16:
+            return c -> {
+                c.push16(c.reg16(r16));
+                c.advance(len, cy);
+            };
+
+        // Add
+        case ADD_A_R8:
+            return c -> {
+                c.addA(c.reg(r0), bit3);
+                c.advance(len, cy);
+            };
+        case ADD_A_N8:
+            return c -> {
+                c.addA(c.operand, bit3);
+                c.advance(len, cy);
+            };
+        case ADD_A_HLR:
+            return c -> {
+                c.addA(c.read8AtHl(), bit3);
+                c.advance(len, cy);
+            };
+        case INC_R8:
+            return c -> {
+                c.setReg(r3, c.inc8(c.reg(r3)));
+                c.advance(len, cy);
+            };
+        case INC_HLR:
+            return c -> {
+                c.write8AtHl(c.inc8(c.read8AtHl()));
+                c.advance(len, cy);
+            };
+        case INC_R16SP:
+            return c -> {
+                int regValue = r16 == Reg16.AF ? c.SP : c.reg16(r16);
+                c.setReg16SP(r16, Bits.clip(16, regValue + 1));
+                c.advance(len, cy);
+            };
+        case ADD_HL_R16SP:
+            return c -> {
+                int regValue = r16 == Reg16.AF ? c.SP : c.reg16(r16);
+                int sum = Alu.add16H(c.reg16(Reg16.HL), regValue);
+                c.setReg16SP(Reg16.HL, Alu.unpackValue(sum));
+                c.combineAluFlags(sum, FlagSrc.CPU, FlagSrc.V0, FlagSrc.ALU,
+                        FlagSrc.ALU);
+                c.advance(len, cy);
+            };
+        case LD_HLSP_S8:
+            return c -> {
+                int sum = Alu.add16L(c.SP,
+                        Bits.clip(16, Bits.signExtend8(c.operand)));
+                if (bit4)
+                    c.setReg16(Reg16.HL, Alu.unpackValue(sum));
+                else
+                    c.SP = Alu.unpackValue(sum);
+                c.combineAluFlags(sum, FlagSrc.V0, FlagSrc.V0, FlagSrc.ALU,
+                        FlagSrc.ALU);
+                c.advance(len, cy);
+            };
+
+        // Subtract
+        case SUB_A_R8:
+            return c -> {
+                c.subA(c.reg(r0), bit3);
+                c.advance(len, cy);
+            };
+        case SUB_A_N8:
+            return c -> {
+                c.subA(c.operand, bit3);
+                c.advance(len, cy);
+            };
+        case SUB_A_HLR:
+            return c -> {
+                c.subA(c.read8AtHl(), bit3);
+                c.advance(len, cy);
+            };
+        case DEC_R8:
+            return c -> {
+                c.setReg(r3, c.dec8(c.reg(r3)));
+                c.advance(len, cy);
+            };
+        case DEC_HLR:
+            return c -> {
+                c.write8AtHl(c.dec8(c.read8AtHl()));
+                c.advance(len, cy);
+            };
+        case CP_A_R8:
+            return c -> {
+                c.compareA(c.reg(r0));
+                c.advance(len, cy);
+            };
+        case CP_A_N8:
+            return c -> {
+                c.compareA(c.operand);
+                c.advance(len, cy);
+            };
+        case CP_A_HLR:
+            return c -> {
+                c.compareA(c.read8AtHl());
+                c.advance(len, cy);
+            };
+        case DEC_R16SP:
+            return c -> {
+                int regValue = r16 == Reg16.AF ? c.SP : c.reg16(r16);
+                c.setReg16SP(r16, Bits.clip(16, regValue - 1));
+                c.advance(len, cy);
+            };
+
+        // And, or, xor, complement
+        case AND_A_N8:
+            return c -> {
+                c.andA(c.operand);
+                c.advance(len, cy);
+            };
+        case AND_A_R8:
+            return c -> {
+                c.andA(c.reg(r0));
+                c.advance(len, cy);
+            };
+        case AND_A_HLR:
+            return c -> {
+                c.andA(c.read8AtHl());
+                c.advance(len, cy);
+            };
+        case OR_A_R8:
+            return c -> {
+                c.orA(c.reg(r0));
+                c.advance(len, cy);
+            };
+        case OR_A_N8:
+            return c -> {
+                c.orA(c.operand);
+                c.advance(len, cy);
+            };
+        case OR_A_HLR:
+            return c -> {
+                c.orA(c.read8AtHl());
+                c.advance(len, cy);
+            };
+        case XOR_A_R8:
+            return c -> {
+                c.xorA(c.reg(r0));
+                c.advance(len, cy);
+            };
+        case XOR_A_N8:
+            return c -> {
+                c.xorA(c.operand);
+                c.advance(len, cy);
+            };
+        case XOR_A_HLR:
+            return c -> {
+                c.xorA(c.read8AtHl());
+                c.advance(len, cy);
+            };
+        case CPL:
+            return c -> {
+                int cpl = Bits.complement8(c.A);
+                c.A = cpl;
+                c.combineAluFlags(cpl, FlagSrc.CPU, FlagSrc.V1, FlagSrc.V1,
+                        FlagSrc.CPU);
+                c.advance(len, cy);
+            };
+
+        // Rotate, shift
+        case ROTCA:
+            return c -> {
+                int rot = Alu.rotate(dir, c.A);
+                c.setRegFromAlu(Reg.A, rot);
+                c.combineAluFlags(rot, FlagSrc.V0, FlagSrc.V0, FlagSrc.V0,
+                        FlagSrc.ALU);
+                c.advance(len, cy);
+            };
+        case ROTA:
+            return c -> {
+                int rot = Alu.rotate(dir, c.A,
+                        c.carryFlag());
+                c.setRegFromAlu(Reg.A, rot);
+                c.combineAluFlags(rot, FlagSrc.V0, FlagSrc.V0, FlagSrc.V0,
+                        FlagSrc.ALU);
+                c.advance(len, cy);
+            };
+        case ROTC_R8:
+            return c -> {
+                c.setRegFlags(r0, Alu.rotate(dir, c.reg(r0)));
+                c.advance(len, cy);
+            };
+        case ROT_R8:
+            return c -> {
+                c.setRegFlags(r0, Alu.rotate(dir, c.reg(r0),
+                        c.carryFlag()));
+                c.advance(len, cy);
+            };
+        case ROTC_HLR:
+            return c -> {
+                c.write8AtHlAndSetFlags(Alu.rotate(dir, c.read8AtHl()));
+                c.advance(len, cy);
+            };
+        case ROT_HLR:
+            return c -> {
+                c.write8AtHlAndSetFlags(Alu.rotate(dir, c.read8AtHl(),
+                        c.carryFlag()));
+                c.advance(len, cy);
+            };
+        case SWAP_R8:
+            return c -> {
+                c.setRegFlags(r0, Alu.swap(c.reg(r0)));
+                c.advance(len, cy);
+            };
+        case SWAP_HLR:
+            return c -> {
+                c.write8AtHlAndSetFlags(Alu.swap(c.read8AtHl()));
+                c.advance(len, cy);
+            };
+        case SLA_R8:
+            return c -> {
+                c.setRegFlags(r0, Alu.shiftLeft(c.reg(r0)));
+                c.advance(len, cy);
+            };
+        case SRA_R8:
+            return c -> {
+                c.setRegFlags(r0, Alu.shiftRightA(c.reg(r0)));
+                c.advance(len, cy);
+            };
+        case SRL_R8:
+            return c -> {
+                c.setRegFlags(r0, Alu.shiftRightL(c.reg(r0)));
+                c.advance(len, cy);
+            };
+        case SLA_HLR:
+            return c -> {
+                c.write8AtHlAndSetFlags(Alu.shiftLeft(c.read8AtHl()));
+                c.advance(len, cy);
+            };
+        case SRA_HLR:
+            return c -> {
+                c.write8AtHlAndSetFlags(Alu.shiftRightA(c.read8AtHl()));
+                c.advance(len, cy);
+            };
+        case SRL_HLR:
+            return c -> {
+                c.write8AtHlAndSetFlags(Alu.shiftRightL(c.read8AtHl()));
+                c.advance(len, cy);
+            };
+
+        // Bit test and set
+        case BIT_U3_R8:
+            return c -> {
+                c.combineAluFlags(Alu.testBit(c.reg(r0), bitIndex),
+                        FlagSrc.ALU, FlagSrc.V0, FlagSrc.V1, FlagSrc.CPU);
+                c.advance(len, cy);
+            };
+        case BIT_U3_HLR:
+            return c -> {
+                c.combineAluFlags(Alu.testBit(c.read8AtHl(), bitIndex),
+                        FlagSrc.ALU, FlagSrc.V0, FlagSrc.V1, FlagSrc.CPU);
+                c.advance(len, cy);
+            };
+        case CHG_U3_R8:
+            if (bit6)
+                return c -> {
+                    c.setReg(r0, c.reg(r0) | (1 << bitIndex));
+                    c.advance(len, cy);
+                };
+            return c -> {
+                c.setReg(r0,
+                        c.reg(r0) & Bits.complement8(1 << bitIndex));
+                c.advance(len, cy);
+            };
+        case CHG_U3_HLR:
+            if (bit6)
+                return c -> {
+                    c.write8AtHl(c.read8AtHl() | (1 << bitIndex));
+                    c.advance(len, cy);
+                };
+            return c -> {
+                c.write8AtHl(c.read8AtHl() & Bits.complement8(1 << bitIndex));
+                c.advance(len, cy);
+            };
+
+        // Misc. ALU
+        case DAA:
+            return c -> {
+                int adjust = Alu.bcdAdjust(c.A,
+                        Bits.test(c.f(), Flag.N),
+                        Bits.test(c.f(), Flag.H),
+                        c.carryFlag());
+                c.setRegFromAlu(Reg.A, adjust);
+                c.combineAluFlags(adjust, FlagSrc.ALU, FlagSrc.CPU, FlagSrc.V0,
+                        FlagSrc.ALU);
+                c.advance(len, cy);
+            };
+        case SCCF: {
+            FlagSrc carrySrc = bit3 ? FlagSrc.ALU : FlagSrc.V1;
+            return c -> {
+                c.combineAluFlags(
+                        Alu.maskZNHC(false, false, false, !c.carryIf(bit3)),
+                        FlagSrc.CPU, FlagSrc.V0, FlagSrc.V0, carrySrc);
+                c.advance(len, cy);
+            };
+        }
+
+        // Jumps
+        case JP_HL:
+            return c -> c.jump(c.reg16(Reg16.HL), cy);
+        case JP_N16:
+            return c -> c.jump(c.operand, cy);
+        case JP_CC_N16:
+            return c -> {
+                if (c.testCondition(cc))
+                    c.jump(c.operand, cyTaken);
+                else
+                    c.advance(len, cy);
+            };
+        case JR_E8:
+            return c -> c.jump(
+                    c.PC + len + Bits.signExtend8(c.operand), cy);
+        case JR_CC_E8:
+            return c -> {
+                if (c.testCondition(cc))
+                    c.jump(c.PC + len + Bits.signExtend8(c.operand),
+                            cyTaken);
+                else
+                    c.advance(len, cy);
+            };
+
+        // Calls and returns
+        case CALL_N16:
+            return c -> {
+                c.push16(c.PC + len);
+                c.jump(c.operand, cy);
+            };
+        case CALL_CC_N16:
+            return c -> {
+                if (c.testCondition(cc)) {
+                    c.push16(c.PC + len);
+                    c.jump(c.operand, cyTaken);
+                } else
+                    c.advance(len, cy);
+            };
+        case RST_U3:
+            return c -> {
+                c.push16(c.PC + len);
+                c.jump(8 * bitIndex, cy);
+            };
+        case RET:
+            return c -> c.jump(c.pop16(), cy);
+        case RET_CC:
+            return c -> {
+                if (c.testCondition(cc))
+                    c.jump(c.pop16(), cyTaken);
+                else
+                    c.advance(len, cy);
+            };
+
+        // Interrupts
+        case EDI:
+            return c -> {
+                c.IME = bit3;
+                c.advance(len, cy);
+            };
+        case RETI:
+            return c -> {
+                c.IME = true;
+                c.jump(c.pop16(), cy);
+            };
+
+        // Misc control
+        case HALT:
+            return c -> {
+                c.nextNonIdleCycle = Long.MAX_VALUE;
+                c.advance(len, cy);
+            };
+        case STOP:
+            return c -> {
+                throw new Error("STOP is not implemented");
+            };
+        default:
+            throw new Error("unknown family " + opcode.family);
+        }
+    }
+
+    /**
+     * construit le traitant de l'opcode donné lisant les résultats de l'unité
+     * arithmétique et logique dans les tables de {@link TableAlu}. Les
+     * additions, soustractions et comparaisons sur A calculent leurs fanions
+     * immédiatement. Les opcodes qui n'utilisent pas ces tables reçoivent le
+     * traitant habituel.
+     * 
+     * @param opcode
+     *            donne l'opcode dont on construit le traitant
+     * @return le traitant de l'opcode donné
+     */
+    private static Handler buildTableAluHandler(Opcode opcode) {
+
+        int len = opcode.totalBytes;
+        int cy = opcode.cycles;
+
+        Reg r0 = extractReg(opcode, 0);
+        RotDir dir = extractDir(opcode);
+        boolean bit3 = Bits.test(opcode.encoding, 3);
+
+        switch (opcode.family) {
+        case ADD_A_R8:
+            return c -> {
+                c.setRegFlags(Reg.A,
+                        TableAlu.add(c.A, c.reg(r0), c.carryIf(bit3)));
+                c.advance(len, cy);
+            };
+        case ADD_A_N8:
+            return c -> {
+                c.setRegFlags(Reg.A,
+                        TableAlu.add(c.A, c.operand, c.carryIf(bit3)));
+                c.advance(len, cy);
+            };
+        case ADD_A_HLR:
+            return c -> {
+                c.setRegFlags(Reg.A,
+                        TableAlu.add(c.A, c.read8AtHl(), c.carryIf(bit3)));
+                c.advance(len, cy);
+            };
+        case SUB_A_R8:
+            return c -> {
+                c.setRegFlags(Reg.A,
+                        TableAlu.sub(c.A, c.reg(r0), c.carryIf(bit3)));
+                c.advance(len, cy);
+            };
+        case SUB_A_N8:
+            return c -> {
+                c.setRegFlags(Reg.A,
+                        TableAlu.sub(c.A, c.operand, c.carryIf(bit3)));
+                c.advance(len, cy);
+            };
+        case SUB_A_HLR:
+            return c -> {
+                c.setRegFlags(Reg.A,
+                        TableAlu.sub(c.A, c.read8AtHl(), c.carryIf(bit3)));
+                c.advance(len, cy);
+            };
+        case CP_A_R8:
+            return c -> {
+                c.setFlags(TableAlu.sub(c.A, c.reg(r0)));
+                c.advance(len, cy);
+            };
+        case CP_A_N8:
+            return c -> {
+                c.setFlags(TableAlu.sub(c.A, c.operand));
+                c.advance(len, cy);
+            };
+        case CP_A_HLR:
+            return c -> {
+                c.setFlags(TableAlu.sub(c.A, c.read8AtHl()));
+                c.advance(len, cy);
+            };
+
+        case ROTCA:
+            return c -> {
+                int rot = TableAlu.rotate(dir, c.A);
+                c.setRegFromAlu(Reg.A, rot);
+                c.combineAluFlags(rot, FlagSrc.V0, FlagSrc.V0, FlagSrc.V0,
+                        FlagSrc.ALU);
+                c.advance(len, cy);
+            };
+        case ROTA:
+            return c -> {
+                int rot = TableAlu.rotate(dir, c.A, c.carryFlag());
+                c.setRegFromAlu(Reg.A, rot);
+                c.combineAluFlags(rot, FlagSrc.V0, FlagSrc.V0, FlagSrc.V0,
+                        FlagSrc.ALU);
+                c.advance(len, cy);
+            };
+        case ROTC_R8:
+            return c -> {
+                c.setRegFlags(r0, TableAlu.rotate(dir, c.reg(r0)));
+                c.advance(len, cy);
+            };
+        case ROT_R8:
+            return c -> {
+                c.setRegFlags(r0,
+                        TableAlu.rotate(dir, c.reg(r0), c.carryFlag()));
+                c.advance(len, cy);
+            };
+        case ROTC_HLR:
+            return c -> {
+                c.write8AtHlAndSetFlags(TableAlu.rotate(dir, c.read8AtHl()));
+                c.advance(len, cy);
+            };
+        case ROT_HLR:
+            return c -> {
+                c.write8AtHlAndSetFlags(TableAlu.rotate(dir, c.read8AtHl(),
+                        c.carryFlag()));
+                c.advance(len, cy);
+            };
+        case SWAP_R8:
+            return c -> {
+                c.setRegFlags(r0, TableAlu.swap(c.reg(r0)));
+                c.advance(len, cy);
+            };
+        case SWAP_HLR:
+            return c -> {
+                c.write8AtHlAndSetFlags(TableAlu.swap(c.read8AtHl()));
+                c.advance(len, cy);
+            };
+        case SLA_R8:
+            return c -> {
+                c.setRegFlags(r0, TableAlu.shiftLeft(c.reg(r0)));
+                c.advance(len, cy);
+            };
+        case SRA_R8:
+            return c -> {
+                c.setRegFlags(r0, TableAlu.shiftRightA(c.reg(r0)));
+                c.advance(len, cy);
+            };
+        case SRL_R8:
+            return c -> {
+                c.setRegFlags(r0, TableAlu.shiftRightL(c.reg(r0)));
+                c.advance(len, cy);
+            };
+        case SLA_HLR:
+            return c -> {
+                c.write8AtHlAndSetFlags(TableAlu.shiftLeft(c.read8AtHl()));
+                c.advance(len, cy);
+            };
+        case SRA_HLR:
+            return c -> {
+                c.write8AtHlAndSetFlags(TableAlu.shiftRightA(c.read8AtHl()));
+                c.advance(len, cy);
+            };
+        case SRL_HLR:
+            return c -> {
+                c.write8AtHlAndSetFlags(TableAlu.shiftRightL(c.read8AtHl()));
+                c.advance(len, cy);
+            };
+
+        case DAA:
+            return c -> {
+                int adjust = TableAlu.bcdAdjust(c.A,
+                        Bits.test(c.f(), Flag.N),
+                        Bits.test(c.f(), Flag.H),
+                        c.carryFlag());
+                c.setRegFromAlu(Reg.A, adjust);
+                c.combineAluFlags(adjust, FlagSrc.ALU, FlagSrc.CPU, FlagSrc.V0,
+                        FlagSrc.ALU);
+                c.advance(len, cy);
+            };
+        default:
+            return buildHandler(opcode);
+        }
+    }
+
+    /**
+     * ajoute la valeur donnée (et éventuellement la retenue) à A, les fanions
+     * étant calculés plus tard
+     * 
+     * @param v
+     *            donne la valeur 8 bits à ajouter
+     * @param withCarry
+     *            vrai si l'instruction utilise la retenue
+     */
+    private void addA(int v, boolean withCarry) {
+        int x = carryIf(withCarry) ? 1 : 0;
+        int res = A + v + x;
+        setLazyFlags(LAZY_ADD, A, v, x, res);
+        A = res & 0xFF;
+    }
+
+    /**
+     * soustrait la valeur donnée (et éventuellement l'emprunt) de A, les
+     * fanions étant calculés plus tard
+     * 
+     * @param v
+     *            donne la valeur 8 bits à soustraire
+     * @param withBorrow
+     *            vrai si l'instruction utilise l'emprunt
+     */
+    private void subA(int v, boolean withBorrow) {
+        int x = carryIf(withBorrow) ? 1 : 0;
+        int res = A - v - x;
+        setLazyFlags(LAZY_SUB, A, v, x, res);
+        A = res & 0xFF;
+    }
+
+    /**
+     * compare A à la valeur donnée, sans modifier A
+     * 
+     * @param v
+     *            donne la valeur 8 bits à comparer
+     */
+    private void compareA(int v) {
+        setLazyFlags(LAZY_SUB, A, v, 0, A - v);
+    }
+
+    /**
+     * incrémente la valeur donnée en conservant le fanion C
+     * 
+     * @param v
+     *            donne la valeur 8 bits à incrémenter
+     * @return la valeur incrémentée, sur 8 bits
+     */
+    private int inc8(int v) {
+        setLazyFlags(LAZY_INC, v, 1, carryFlag() ? MASK_C : 0, v + 1);
+        return (v + 1) & 0xFF;
+    }
+
+    /**
+     * décrémente la valeur donnée en conservant le fanion C
+     * 
+     * @param v
+     *            donne la valeur 8 bits à décrémenter
+     * @return la valeur décrémentée, sur 8 bits
+     */
+    private int dec8(int v) {
+        setLazyFlags(LAZY_DEC, v, 1, carryFlag() ? MASK_C : 0, v - 1);
+        return (v - 1) & 0xFF;
+    }
+
+    /**
+     * effectue les opérations logiques entre A et la valeur 8 bits donnée
+     */
+    private void andA(int v) {
+        A &= v;
+        setF(A == 0 ? MASK_Z | MASK_H : MASK_H);
+    }
+
+    private void orA(int v) {
+        A |= v;
+        setF(A == 0 ? MASK_Z : 0);
+    }
+
+    private void xorA(int v) {
+        A ^= v;
+        setF(A == 0 ? MASK_Z : 0);
+    }
+
+    /**
+     * termine une instruction qui ne saute pas : avance le compteur de
+     * programme de la longueur donnée et le prochain cycle non oisif du nombre
+     * de cycles donné
+     * 
+     * @param length
+     *            donne la longueur de l'instruction en octets
+     * @param cycles
+     *            donne le nombre de cycles de l'instruction
+     */
+    private void advance(int length, int cycles) {
+        PC += length;
+        nextNonIdleCycle += cycles;
+    }
+
+    /**
+     * termine une instruction qui saute à l'adresse donnée
+     * 
+     * @param target
+     *            donne l'adresse de la prochaine instruction
+     * @param cycles
+     *            donne le nombre de cycles de l'instruction
+     */
+    private void jump(int target, int cycles) {
+        PC = target;
+        nextNonIdleCycle += cycles;
+    }
+
     @Override
     /**
      * fait que le processeur évolue en lui faisaint éxectuer toutes les
@@ -114,7 +1036,9 @@ public final class Cpu implements Component, Clocked {
      * 
      */
     public void cycle(long cycle) {
-        if ((nextNonIdleCycle == Long.MAX_VALUE) && testIeIf()) {
+        currentCycle = cycle;
+
+        if ((nextNonIdleCycle == Long.MAX_VALUE) && pendingInterrupts != 0) {
 
             nextNonIdleCycle = cycle;
             reallyCycle();
@@ -129,38 +1053,685 @@ public final class Cpu implements Component, Clocked {
 
     }
 
+    /**
+     * retourne le dernier cycle durant lequel le processeur a été appelé,
+     * c'est-à-dire celui durant lequel ont lieu ses accès au bus. Les
+     * composants qui ne sont pas appelés à chaque cycle s'en servent pour se
+     * mettre à jour lorsque le processeur lit ou écrit leurs registres.
+     * 
+     * @return le cycle courant du processeur, ou -1 s'il n'a jamais été appelé
+     */
+    public long currentCycle() {
+        return currentCycle;
+    }
+
+    /**
+     * retourne le cycle de la prochaine instruction à exécuter, ou
+     * Long.MAX_VALUE si le processeur est arrêté et qu'aucune interruption ne
+     * peut le réveiller
+     * 
+     * @see ch.epfl.gameboj.component.Clocked#nextEventCycle(long)
+     */
+    @Override
+    public long nextEventCycle(long cycle) {
+
+        if (nextNonIdleCycle == Long.MAX_VALUE)
+            return pendingInterrupts != 0 ? cycle : Long.MAX_VALUE;
+
+        return Math.max(cycle, nextNonIdleCycle);
+    }
+
     public void reallyCycle() {
-        if (IME && testIeIf()) {
+        if (IME && pendingInterrupts != 0) {
 
+            idleBlock = null;
             IME = false;
-            int i = 31 - Integer
-                    .numberOfLeadingZeros(Integer.lowestOneBit(IF & IE));
-            IF = Bits.set(IF, i, false);
+            int i = Integer.numberOfTrailingZeros(pendingInterrupts);
+            setIF(IF & ~(1 << i));
             push16(PC); // i
             PC = 0x40 + (8 * i);
             nextNonIdleCycle = nextNonIdleCycle + 5;
 
         } else {
 
-            int suivant = bus.read(PC);
+            if (switchDispatch) {
 
-            Opcode OPsuivant;
+                int suivant = bus.read(PC);
+                dispatch(suivant == prefixed
+                        ? PREFIXED_OPCODE_TABLE[bus.read(PC + 1)]
+                        : DIRECT_OPCODE_TABLE[suivant]);
 
-            if (suivant == prefixed) {
+            } else {
 
-                suivant = bus.read(PC + 1);
-                OPsuivant = PREFIXED_OPCODE_TABLE[suivant];
+                Block b = block;
+                int i = blockIndex;
+                if (b == null || !b.valid || i >= b.pcs.length
+                        || b.pcs[i] != PC) {
+                    b = block = lookupBlock(PC);
+                    i = 0;
+                }
+                if (b != idleBlock)
+                    idleBlock = null;
+                if (i == 0 && b.idleLoop && idleHorizon != null
+                        && skipIdleIterations(b))
+                    return;
+                boolean fused = b.fusedLoop && loopFusion
+                        && idleHorizon != null;
+                if (i == 0 && (fused || (blockExecution && b.pcs[0] < 0x8000
+                        && ++b.heat >= HOT_BLOCK_THRESHOLD))) {
+                    runBlock(b, fused);
+                } else {
+                    blockIndex = i + 1;
+                    operand = b.operands[i];
+                    b.handlers[i].execute(this);
+                }
 
+            }
+        }
+    }
+
+    /**
+     * fixe la fonction donnant, pour un cycle, le prochain cycle durant lequel
+     * un autre composant que le processeur a du travail (et peut donc lever
+     * une interruption), ce qui active la détection des boucles d'attente :
+     * une boucle qui ne fait que lire la mémoire, sans y écrire, et qui
+     * revient à son début dans le même état qu'au tour précédent est sautée
+     * d'un coup, tour après tour, jusqu'au premier cycle où une des valeurs
+     * qu'elle lit ou l'horizon donné peut changer. Le nombre de cycles et
+     * l'état du processeur restent exacts. Elle active aussi l'exécution
+     * groupée des boucles courtes (voir {@link #useLoopFusion(boolean)}).
+     * 
+     * @param horizon
+     *            la fonction donnant le prochain cycle de travail des autres
+     *            composants, ou null pour désactiver la détection
+     */
+    public void setIdleHorizon(LongUnaryOperator horizon) {
+        idleHorizon = horizon;
+        idleBlock = null;
+    }
+
+    /**
+     * appelée au début d'un bloc qui boucle sur lui-même sans écrire :
+     * si le tour précédent a été entièrement exécuté et a ramené le
+     * processeur dans le même état, saute tous les tours qui se terminent
+     * avant que l'une des valeurs lues ou l'horizon ne puisse changer ; sinon
+     * mémorise l'état pour le tour qui commence
+     * 
+     * @param b
+     *            donne le bloc, dont la première instruction est à PC
+     * @return vrai si des tours ont été sautés
+     */
+    private boolean skipIdleIterations(Block b) {
+
+        long now = nextNonIdleCycle;
+
+        if (b == idleBlock && sameIdleState()) {
+
+            long period = now - idleHeadCycle;
+            long limit = Math.min(idleLimit, idleHorizon.applyAsLong(now));
+
+            long iterations = (limit - now) / period;
+            if (iterations > 0) {
+                nextNonIdleCycle = now + iterations * period;
+                idleBlock = null;
+                return true;
+            }
+        }
+
+        idleBlock = b;
+        idleHeadCycle = now;
+        idleLimit = Long.MAX_VALUE;
+        saveIdleState();
+        return false;
+    }
+
+    private void saveIdleState() {
+        idleState[0] = A;
+        idleState[1] = f();
+        idleState[2] = B;
+        idleState[3] = C;
+        idleState[4] = D;
+        idleState[5] = E;
+        idleState[6] = H;
+        idleState[7] = L;
+        idleState[8] = SP;
+        idleState[9] = IME ? 1 : 0;
+    }
+
+    private boolean sameIdleState() {
+        return idleState[0] == A && idleState[1] == f()
+                && idleState[2] == B && idleState[3] == C
+                && idleState[4] == D && idleState[5] == E
+                && idleState[6] == H && idleState[7] == L
+                && idleState[8] == SP && idleState[9] == (IME ? 1 : 0);
+    }
+
+    /**
+     * choisit si les blocs chauds en mémoire morte sont exécutés d'un seul
+     * tenant, par le même exécuteur que les boucles groupées (voir
+     * {@link #useLoopFusion(boolean)}) et avec les mêmes conditions d'arrêt,
+     * si bien que le résultat est celui de l'exécution instruction par
+     * instruction. Sans horizon des boucles d'attente (voir
+     * {@link #setIdleHorizon(LongUnaryOperator)}), seule la première
+     * instruction d'un bloc est exécutée à la fois.
+     * 
+     * @param enabled
+     *            vrai pour exécuter les blocs chauds d'un seul tenant
+     */
+    public void useBlockExecution(boolean enabled) {
+        blockExecution = enabled;
+    }
+
+    /**
+     * choisit si les boucles courtes (copie ou remplissage de mémoire,
+     * attente d'un registre, temporisation) sont exécutées comme une seule
+     * opération : leurs tours s'enchaînent sans repasser par l'ordonnanceur,
+     * jusqu'au prochain cycle de travail des autres composants ou jusqu'à ce
+     * qu'une interruption doive être traitée. Le nombre de cycles et l'état
+     * final restent exacts. N'a d'effet que si l'horizon des boucles
+     * d'attente est fixé.
+     * 
+     * @param enabled
+     *            vrai pour grouper l'exécution des boucles (par défaut)
+     */
+    public void useLoopFusion(boolean enabled) {
+        loopFusion = enabled;
+    }
+
+    /**
+     * exécute d'affilée les instructions du bloc donné, chacune voyant le
+     * cycle auquel elle aurait été exécutée, et, pour une boucle, revient à
+     * son début tant qu'elle est reprise. S'arrête avant la première
+     * instruction qui commencerait au prochain cycle de travail des autres
+     * composants, après une écriture dans les registres d'entrée/sortie (qui
+     * peut le rapprocher), lorsqu'une interruption doit être traitée, si une
+     * instruction quitte le bloc ou l'invalide (changement de banque), et à
+     * la fin de chaque tour d'une boucle d'attente, afin que sa détection
+     * voie chaque retour au début.
+     * 
+     * @param b
+     *            donne le bloc, dont la première instruction est à PC
+     * @param loop
+     *            vrai pour revenir au début du bloc lorsqu'il boucle sur
+     *            lui-même
+     */
+    private void runBlock(Block b, boolean loop) {
+
+        Handler[] handlers = b.handlers;
+        int[] pcs = b.pcs;
+        int[] operands = b.operands;
+        int last = pcs.length - 1;
+        long horizon = idleHorizon == null ? nextNonIdleCycle
+                : idleHorizon.applyAsLong(nextNonIdleCycle);
+        ioWritten = false;
+
+        int i = 0;
+        while (true) {
+            blockIndex = i + 1;
+            operand = operands[i];
+            handlers[i].execute(this);
+
+            if (i < last)
+                ++i;
+            else if (loop && !b.idleLoop)
+                i = 0;
+            else
+                return;
+
+            if (PC != pcs[i] || block != b || !b.valid
+                    || nextNonIdleCycle >= horizon || ioWritten
+                    || (IME && pendingInterrupts != 0))
+                return;
+            currentCycle = nextNonIdleCycle;
+        }
+    }
+
+    /**
+     * retourne le bloc décodé commençant à l'adresse donnée, en le décodant
+     * s'il n'est pas dans le cache. Seuls les blocs en mémoire morte (rangés
+     * dans la table de la banque courante, si bien que ceux des autres banques
+     * restent disponibles pour leur prochain retour) et en mémoire vive de
+     * travail ou haute sont gardés, ces dernières n'étant écrites que par le
+     * processeur.
+     * 
+     * @param pc
+     *            donne l'adresse de la première instruction du bloc
+     * @return le bloc décodé
+     */
+    private Block lookupBlock(int pc) {
+
+        if (pc < 0x8000) {
+
+            Block[] table = pc < 0x4000 ? romLow : romHigh;
+            int i = pc & 0x3FFF;
+            Block b = table[i];
+            if (b == null)
+                b = table[i] = decodeBlock(pc, MAX_BLOCK_LENGTH);
+            return b;
+
+        } else if ((pc >= AddressMap.WORK_RAM_START
+                && pc < AddressMap.WORK_RAM_END)
+                || (pc >= AddressMap.HIGH_RAM_START
+                        && pc < AddressMap.HIGH_RAM_END)) {
+
+            Block b = blocks[pc];
+            if (b == null) {
+                b = blocks[pc] = decodeBlock(pc, MAX_BLOCK_LENGTH);
+                int end = b.pcs[b.pcs.length - 1] + 3;
+                for (int a = pc; a < end && a < codeBytes.length; ++a)
+                    codeBytes[a] = true;
+            }
+            return b;
+
+        } else {
+
+            return decodeBlock(pc, 1);
+
+        }
+    }
+
+    /**
+     * décode le bloc de base commençant à l'adresse donnée
+     * 
+     * @param start
+     *            donne l'adresse de la première instruction
+     * @param maxLength
+     *            donne le nombre maximal d'instructions du bloc
+     * @return le bloc décodé
+     */
+    private Block decodeBlock(int start, int maxLength) {
+
+        int[] pcs = new int[maxLength];
+        Handler[] handlers = new Handler[maxLength];
+        Opcode[] opcodes = new Opcode[maxLength];
+        int[] operands = new int[maxLength];
+        int n = 0;
+        int pc = start;
+        boolean end;
+
+        do {
+            int encoding = bus.read(pc);
+            Opcode opcode;
+            if (encoding == prefixed) {
+                encoding = bus.read(pc + 1);
+                opcode = PREFIXED_OPCODE_TABLE[encoding];
+                handlers[n] = prefixedHandlers[encoding];
             } else {
+                opcode = DIRECT_OPCODE_TABLE[encoding];
+                handlers[n] = directHandlers[encoding];
+            }
+            pcs[n] = pc;
+            opcodes[n] = opcode;
+
+            if (opcode == null) {
+                ++n;
+                break;
+            }
+
+            if (opcode.kind == Opcode.Kind.DIRECT && opcode.totalBytes == 2)
+                operands[n] = bus.read(pc + 1);
+            else if (opcode.totalBytes == 3)
+                operands[n] = Bits.make16(bus.read(pc + 2), bus.read(pc + 1));
+
+            ++n;
+            pc += opcode.totalBytes;
+            end = endsBlock(opcode) || (pc >> 8) != (start >> 8)
+                    || n == maxLength;
+        } while (!end);
+
+        return new Block(Arrays.copyOf(pcs, n), Arrays.copyOf(handlers, n),
+                Arrays.copyOf(operands, n),
+                isIdleLoop(start, opcodes, pcs, operands, n),
+                isFusedLoop(start, opcodes, pcs, operands, n));
+    }
+
+    /**
+     * indique si le bloc décodé donné est une boucle d'attente possible :
+     * toutes ses instructions ne font que lire la mémoire ou calculer sur
+     * les registres, sans rien écrire, et la dernière est un saut vers son
+     * début
+     * 
+     * @param start
+     *            donne l'adresse de la première instruction
+     * @param opcodes
+     *            donne les opcodes des instructions
+     * @param pcs
+     *            donne les adresses des instructions
+     * @param operands
+     *            donne les opérandes immédiats des instructions
+     * @param n
+     *            donne le nombre d'instructions
+     * @return vrai si le bloc peut être une boucle d'attente
+     */
+    private static boolean isIdleLoop(int start, Opcode[] opcodes, int[] pcs,
+            int[] operands, int n) {
+
+        for (int i = 0; i < n - 1; ++i)
+            if (!readsOnly(opcodes[i]))
+                return false;
 
-                OPsuivant = DIRECT_OPCODE_TABLE[suivant];
+        return loopsToStart(start, opcodes, pcs, operands, n);
+    }
 
+    /**
+     * indique si le bloc décodé donné est une boucle dont l'exécution peut
+     * être groupée : toutes ses instructions sont des chargements, des
+     * rangements ou des calculs, sans toucher à la pile, au compteur de
+     * programme ou aux interruptions, et la dernière est un saut vers son
+     * début
+     * 
+     * @param start
+     *            donne l'adresse de la première instruction
+     * @param opcodes
+     *            donne les opcodes des instructions
+     * @param pcs
+     *            donne les adresses des instructions
+     * @param operands
+     *            donne les opérandes immédiats des instructions
+     * @param n
+     *            donne le nombre d'instructions
+     * @return vrai si l'exécution du bloc peut être groupée
+     */
+    private static boolean isFusedLoop(int start, Opcode[] opcodes, int[] pcs,
+            int[] operands, int n) {
+
+        for (int i = 0; i < n - 1; ++i)
+            if (!fusable(opcodes[i]))
+                return false;
+
+        return loopsToStart(start, opcodes, pcs, operands, n);
+    }
+
+    /**
+     * indique si la dernière instruction du bloc décodé donné est un saut,
+     * éventuellement conditionnel, vers son début
+     * 
+     * @param start
+     *            donne l'adresse de la première instruction
+     * @param opcodes
+     *            donne les opcodes des instructions
+     * @param pcs
+     *            donne les adresses des instructions
+     * @param operands
+     *            donne les opérandes immédiats des instructions
+     * @param n
+     *            donne le nombre d'instructions
+     * @return vrai si le bloc boucle sur lui-même
+     */
+    private static boolean loopsToStart(int start, Opcode[] opcodes,
+            int[] pcs, int[] operands, int n) {
+
+        Opcode last = opcodes[n - 1];
+        if (last == null)
+            return false;
+
+        switch (last.family) {
+        case JR_E8:
+        case JR_CC_E8:
+            return pcs[n - 1] + last.totalBytes
+                    + Bits.signExtend8(operands[n - 1]) == start;
+        case JP_N16:
+        case JP_CC_N16:
+            return operands[n - 1] == start;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * indique si l'opcode donné ne fait que lire la mémoire ou calculer sur
+     * les registres, sans écrire ni toucher à la pile ou aux interruptions
+     * 
+     * @param opcode
+     *            donne l'opcode, éventuellement nul
+     * @return vrai si l'opcode n'écrit rien
+     */
+    private static boolean readsOnly(Opcode opcode) {
+
+        if (opcode == null)
+            return false;
+
+        switch (opcode.family) {
+        case NOP:
+        case LD_R8_HLR:
+        case LD_A_N8R:
+        case LD_A_CR:
+        case LD_A_N16R:
+        case LD_A_BCR:
+        case LD_A_DER:
+        case LD_R8_N8:
+        case LD_R8_R8:
+        case AND_A_R8:
+        case AND_A_N8:
+        case AND_A_HLR:
+        case OR_A_R8:
+        case OR_A_N8:
+        case OR_A_HLR:
+        case XOR_A_R8:
+        case XOR_A_N8:
+        case XOR_A_HLR:
+        case CP_A_R8:
+        case CP_A_N8:
+        case CP_A_HLR:
+        case BIT_U3_R8:
+        case BIT_U3_HLR:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * indique si l'opcode donné peut faire partie d'une boucle dont
+     * l'exécution est groupée : il lit ou écrit la mémoire ou calcule sur les
+     * registres, sans toucher à la pile, au compteur de programme ou aux
+     * interruptions
+     * 
+     * @param opcode
+     *            donne l'opcode, éventuellement nul
+     * @return vrai si l'opcode peut être groupé
+     */
+    private static boolean fusable(Opcode opcode) {
+
+        if (readsOnly(opcode))
+            return true;
+        if (opcode == null)
+            return false;
+
+        switch (opcode.family) {
+        case LD_A_HLRU:
+        case LD_R16SP_N16:
+        case LD_HLR_R8:
+        case LD_HLRU_A:
+        case LD_N8R_A:
+        case LD_CR_A:
+        case LD_N16R_A:
+        case LD_BCR_A:
+        case LD_DER_A:
+        case LD_HLR_N8:
+        case ADD_A_R8:
+        case ADD_A_N8:
+        case ADD_A_HLR:
+        case INC_R8:
+        case INC_HLR:
+        case INC_R16SP:
+        case ADD_HL_R16SP:
+        case SUB_A_R8:
+        case SUB_A_N8:
+        case SUB_A_HLR:
+        case DEC_R8:
+        case DEC_HLR:
+        case DEC_R16SP:
+        case ROTCA:
+        case ROTA:
+        case ROTC_R8:
+        case ROT_R8:
+        case SWAP_R8:
+        case SLA_R8:
+        case SRA_R8:
+        case SRL_R8:
+        case CHG_U3_R8:
+        case CHG_U3_HLR:
+        case CPL:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * indique si l'opcode donné termine un bloc de base, c'est-à-dire s'il
+     * peut modifier le compteur de programme autrement qu'en passant à
+     * l'instruction suivante
+     * 
+     * @param opcode
+     *            donne l'opcode
+     * @return vrai si l'opcode termine un bloc
+     */
+    private static boolean endsBlock(Opcode opcode) {
+
+        switch (opcode.family) {
+        case JP_HL:
+        case JP_N16:
+        case JP_CC_N16:
+        case JR_E8:
+        case JR_CC_E8:
+        case CALL_N16:
+        case CALL_CC_N16:
+        case RST_U3:
+        case RET:
+        case RET_CC:
+        case RETI:
+        case HALT:
+        case STOP:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * tient à jour le cache de blocs décodés lors d'une écriture du
+     * processeur : une écriture dans les registres du contrôleur de banque ou
+     * dans celui de la mémoire de démarrage change la mémoire morte visible,
+     * une écriture sur un octet de code en mémoire vive invalide les blocs qui
+     * peuvent le contenir
+     * 
+     * @param address
+     *            donne l'adresse écrite
+     * @param v
+     *            donne la valeur écrite
+     */
+    private void invalidateCode(int address, int v) {
+
+        if (address < 0x8000) {
+
+            switch (address >> 13) {
+            case 1:
+                romHighKey = (romHighKey & ~0xFF) | v;
+                break;
+            case 2:
+                romLowKey = (romLowKey & ~0xFF00) | (v << 8);
+                romHighKey = (romHighKey & ~0xFF00) | (v << 8);
+                break;
+            case 3:
+                romLowKey = (romLowKey & ~0xFF0000) | (v << 16);
+                romHighKey = (romHighKey & ~0xFF0000) | (v << 16);
+                break;
+            default:
+                return;
             }
+            romLow = romBlocks(romLowBlocks, romLowKey);
+            romHigh = romBlocks(romHighBlocks, romHighKey);
+            block = null;
 
-            dispatch(OPsuivant);
+        } else if (address == AddressMap.REG_BOOT_ROM_DISABLE) {
+
+            for (Block[] table : romLowBlocks.values())
+                invalidateBlocks(table, AddressMap.BOOT_ROM_START,
+                        AddressMap.BOOT_ROM_END);
+
+        } else if (codeBytes[address]) {
+
+            int page = address & 0xFF00;
+            invalidateBlocks(blocks, Math.max(0, page - 0x100), page + 0x100);
         }
     }
 
+    /**
+     * invalide les blocs d'une table commençant entre les indices donnés
+     * 
+     * @param table
+     *            donne la table de blocs
+     * @param start
+     *            donne le premier indice (inclus)
+     * @param end
+     *            donne le dernier indice (exclu)
+     */
+    private static void invalidateBlocks(Block[] table, int start, int end) {
+
+        for (int a = start; a < end; ++a) {
+            if (table[a] != null) {
+                table[a].valid = false;
+                table[a] = null;
+            }
+        }
+    }
+
+    /**
+     * retourne la table des blocs d'une moitié de la mémoire morte pour la
+     * clef de banque donnée, en la créant si cette banque n'a encore jamais
+     * été visible
+     * 
+     * @param tables
+     *            donne les tables de cette moitié, par clef
+     * @param key
+     *            donne la clef de la banque
+     * @return la table de 0x4000 blocs de la banque
+     */
+    private static Block[] romBlocks(Map<Integer, Block[]> tables, int key) {
+        return tables.computeIfAbsent(key, k -> new Block[0x4000]);
+    }
+
+    /**
+     * choisit si les instructions sont exécutées par la table de traitants
+     * (par défaut) ou par l'ancien aiguillage sur la famille de l'opcode, qui
+     * sert de référence pour les tests de performance
+     * 
+     * @param enabled
+     *            vrai pour utiliser l'aiguillage de référence
+     */
+    public void useSwitchDispatch(boolean enabled) {
+        switchDispatch = enabled;
+    }
+
+    /**
+     * choisit la table de traitants dont les opérations arithmétiques et
+     * logiques lisent leurs résultats dans les tables de {@link TableAlu}
+     * plutôt que de les calculer. Cette variante est expérimentale : elle
+     * n'est pas plus rapide que le calcul sur les cartouches mesurées, et les
+     * additions et soustractions sur A y calculent leurs fanions
+     * immédiatement au lieu de les différer. Le choix est fait une fois pour
+     * toutes ici, les blocs déjà décodés étant oubliés ; l'aiguillage de
+     * référence utilise toujours {@link Alu}.
+     * 
+     * @param enabled
+     *            vrai pour utiliser les tables
+     */
+    public void useAluTables(boolean enabled) {
+        directHandlers = enabled ? TABLE_ALU_DIRECT_HANDLER_TABLE
+                : DIRECT_HANDLER_TABLE;
+        prefixedHandlers = enabled ? TABLE_ALU_PREFIXED_HANDLER_TABLE
+                : PREFIXED_HANDLER_TABLE;
+
+        invalidateBlocks(blocks, 0, blocks.length);
+        for (Block[] table : romLowBlocks.values())
+            invalidateBlocks(table, 0, table.length);
+        for (Block[] table : romHighBlocks.values())
+            invalidateBlocks(table, 0, table.length);
+        block = null;
+    }
+
     /**
      * Lit l'opcode et éxécute l'instruction correspondante
      * 
@@ -181,7 +1752,7 @@ public final class Cpu implements Component, Clocked {
 
         case LD_R8_HLR: {
 
-            reg8.set(extractReg(opcode, 3), read8AtHl());
+            setReg(extractReg(opcode, 3), read8AtHl());
             ;
         }
 
@@ -191,7 +1762,7 @@ public final class Cpu implements Component, Clocked {
 
             int a = read8AtHl();
 
-            reg8.set(Reg.A, a);
+            setReg(Reg.A, a);
 
             setReg16(Reg16.HL, reg16(Reg16.HL) + extractHlIncrement(opcode));
             ;
@@ -201,7 +1772,7 @@ public final class Cpu implements Component, Clocked {
 
         case LD_A_N8R: {
 
-            reg8.set(Reg.A, read8(AddressMap.REGS_START + read8AfterOpcode()));
+            setReg(Reg.A, read8(AddressMap.REGS_START + read8AfterOpcode()));
             ;
         }
 
@@ -209,7 +1780,7 @@ public final class Cpu implements Component, Clocked {
 
         case LD_A_CR: {
 
-            reg8.set(Reg.A, read8(AddressMap.REGS_START + reg8.get(Reg.C)));
+            setReg(Reg.A, read8(AddressMap.REGS_START + reg(Reg.C)));
             ;
         }
 
@@ -217,7 +1788,7 @@ public final class Cpu implements Component, Clocked {
 
         case LD_A_N16R: {
 
-            reg8.set(Reg.A, read8(read16AfterOpcode()));
+            setReg(Reg.A, read8(read16AfterOpcode()));
             ;
         }
 
@@ -225,7 +1796,7 @@ public final class Cpu implements Component, Clocked {
 
         case LD_A_BCR: {
 
-            reg8.set(Reg.A, read8(reg16(Reg16.BC)));
+            setReg(Reg.A, read8(reg16(Reg16.BC)));
             ;
         }
 
@@ -233,14 +1804,14 @@ public final class Cpu implements Component, Clocked {
 
         case LD_A_DER: {
 
-            reg8.set(Reg.A, read8(reg16(Reg16.DE)));
+            setReg(Reg.A, read8(reg16(Reg16.DE)));
         }
 
             break;
 
         case LD_R8_N8: {
 
-            reg8.set(extractReg(opcode, 3), read8AfterOpcode());
+            setReg(extractReg(opcode, 3), read8AfterOpcode());
             ;
         }
 
@@ -264,7 +1835,7 @@ public final class Cpu implements Component, Clocked {
 
         case LD_HLR_R8: {
 
-            write8AtHl(reg8.get(extractReg(opcode, 0)));
+            write8AtHl(reg(extractReg(opcode, 0)));
             ;
         }
 
@@ -274,7 +1845,7 @@ public final class Cpu implements Component, Clocked {
 
             int hlvalue = reg16(Reg16.HL);
 
-            write8AtHl(reg8.get(Reg.A));
+            write8AtHl(reg(Reg.A));
 
             setReg16(Reg16.HL,
 
@@ -286,7 +1857,7 @@ public final class Cpu implements Component, Clocked {
 
         case LD_N8R_A: {
 
-            write8(AddressMap.REGS_START + read8AfterOpcode(), reg8.get(Reg.A));
+            write8(AddressMap.REGS_START + read8AfterOpcode(), reg(Reg.A));
             ;
         }
 
@@ -294,7 +1865,7 @@ public final class Cpu implements Component, Clocked {
 
         case LD_CR_A: {
 
-            write8(AddressMap.REGS_START + reg8.get(Reg.C), reg8.get(Reg.A));
+            write8(AddressMap.REGS_START + reg(Reg.C), reg(Reg.A));
             ;
         }
 
@@ -302,7 +1873,7 @@ public final class Cpu implements Component, Clocked {
 
         case LD_N16R_A: {
 
-            write8(read16AfterOpcode(), reg8.get(Reg.A));
+            write8(read16AfterOpcode(), reg(Reg.A));
             ;
         }
 
@@ -310,7 +1881,7 @@ public final class Cpu implements Component, Clocked {
 
         case LD_BCR_A: {
 
-            write8(reg16(Reg16.BC), reg8.get(Reg.A));
+            write8(reg16(Reg16.BC), reg(Reg.A));
             ;
         }
 
@@ -318,7 +1889,7 @@ public final class Cpu implements Component, Clocked {
 
         case LD_DER_A: {
 
-            write8(reg16(Reg16.DE), reg8.get(Reg.A));
+            write8(reg16(Reg16.DE), reg(Reg.A));
             ;
         }
 
@@ -342,7 +1913,7 @@ public final class Cpu implements Component, Clocked {
 
         case LD_R8_R8: {
 
-            reg8.set(extractReg(opcode, 3), reg8.get(extractReg(opcode, 0)));
+            setReg(extractReg(opcode, 3), reg(extractReg(opcode, 0)));
             ;
         }
 
@@ -366,7 +1937,7 @@ public final class Cpu implements Component, Clocked {
 
         case ADD_A_R8: {
 
-            int add = Alu.add(reg8.get(Reg.A), reg8.get(extractReg(opcode, 0)),
+            int add = Alu.add(reg(Reg.A), reg(extractReg(opcode, 0)),
                     carry1(opcode));
 
             setRegFlags(Reg.A, add);
@@ -374,7 +1945,7 @@ public final class Cpu implements Component, Clocked {
         }
             break;
         case ADD_A_N8: {
-            int add = Alu.add(reg8.get(Reg.A), read8AfterOpcode(),
+            int add = Alu.add(reg(Reg.A), read8AfterOpcode(),
                     carry1(opcode));
             setRegFlags(Reg.A, add);
             ;
@@ -382,15 +1953,15 @@ public final class Cpu implements Component, Clocked {
             break;
         case ADD_A_HLR: {
 
-            int add = Alu.add(reg8.get(Reg.A), read8AtHl(), carry1(opcode));
+            int add = Alu.add(reg(Reg.A), read8AtHl(), carry1(opcode));
             setRegFlags(Reg.A, add);
             ;
 
         }
             break;
         case INC_R8: {
-            int add = Alu.add(reg8.get(extractReg(opcode, 3)), 1);
-            reg8.set(extractReg(opcode, 3), Alu.unpackValue(add));
+            int add = Alu.add(reg(extractReg(opcode, 3)), 1);
+            setReg(extractReg(opcode, 3), Alu.unpackValue(add));
             combineAluFlags(add, FlagSrc.ALU, FlagSrc.V0, FlagSrc.ALU,
                     FlagSrc.CPU);
             ;
@@ -441,26 +2012,26 @@ public final class Cpu implements Component, Clocked {
 
         // Subtract
         case SUB_A_R8: {
-            int sub = Alu.sub(reg8.get(Reg.A), reg8.get(extractReg(opcode, 0)),
+            int sub = Alu.sub(reg(Reg.A), reg(extractReg(opcode, 0)),
                     carry1(opcode));
             setRegFlags(Reg.A, sub);
         }
             break;
         case SUB_A_N8: {
-            int sub = Alu.sub(reg8.get(Reg.A), read8AfterOpcode(),
+            int sub = Alu.sub(reg(Reg.A), read8AfterOpcode(),
                     carry1(opcode));
             setRegFlags(Reg.A, sub);
         }
             break;
         case SUB_A_HLR: {
-            int sub = Alu.sub(reg8.get(Reg.A), read8AtHl(), carry1(opcode));
+            int sub = Alu.sub(reg(Reg.A), read8AtHl(), carry1(opcode));
             setRegFlags(Reg.A, sub);
         }
             break;
         case DEC_R8: {
             ;
-            int sub = Alu.sub(reg8.get(extractReg(opcode, 3)), 1);
-            reg8.set(extractReg(opcode, 3), Alu.unpackValue(sub));
+            int sub = Alu.sub(reg(extractReg(opcode, 3)), 1);
+            setReg(extractReg(opcode, 3), Alu.unpackValue(sub));
             combineAluFlags(sub, FlagSrc.ALU, FlagSrc.V1, FlagSrc.ALU,
                     FlagSrc.CPU);
         }
@@ -474,19 +2045,19 @@ public final class Cpu implements Component, Clocked {
         }
             break;
         case CP_A_R8: {
-            int sub = Alu.sub(reg8.get(Reg.A), reg8.get(extractReg(opcode, 0)));
+            int sub = Alu.sub(reg(Reg.A), reg(extractReg(opcode, 0)));
             setFlags(sub);
 
         }
             break;
         case CP_A_N8: {
             ;
-            int sub = Alu.sub(reg8.get(Reg.A), read8AfterOpcode());
+            int sub = Alu.sub(reg(Reg.A), read8AfterOpcode());
             setFlags(sub);
         }
             break;
         case CP_A_HLR: {
-            int sub = Alu.sub(reg8.get(Reg.A), read8AtHl());
+            int sub = Alu.sub(reg(Reg.A), read8AtHl());
             setFlags(sub);
         }
             break;
@@ -499,47 +2070,47 @@ public final class Cpu implements Component, Clocked {
 
         // And, or, xor, complement
         case AND_A_N8: {
-            setRegFlags(Reg.A, Alu.and(reg8.get(Reg.A), read8AfterOpcode()));
+            setRegFlags(Reg.A, Alu.and(reg(Reg.A), read8AfterOpcode()));
         }
             break;
         case AND_A_R8: {
             setRegFlags(Reg.A,
-                    Alu.and(reg8.get(Reg.A), reg8.get(extractReg(opcode, 0))));
+                    Alu.and(reg(Reg.A), reg(extractReg(opcode, 0))));
         }
             break;
         case AND_A_HLR: {
-            setRegFlags(Reg.A, Alu.and(reg8.get(Reg.A), read8AtHl()));
+            setRegFlags(Reg.A, Alu.and(reg(Reg.A), read8AtHl()));
         }
             break;
         case OR_A_R8: {
             setRegFlags(Reg.A,
-                    Alu.or(reg8.get(Reg.A), reg8.get(extractReg(opcode, 0))));
+                    Alu.or(reg(Reg.A), reg(extractReg(opcode, 0))));
         }
             break;
         case OR_A_N8: {
-            setRegFlags(Reg.A, Alu.or(reg8.get(Reg.A), read8AfterOpcode()));
+            setRegFlags(Reg.A, Alu.or(reg(Reg.A), read8AfterOpcode()));
         }
             break;
         case OR_A_HLR: {
-            setRegFlags(Reg.A, Alu.or(reg8.get(Reg.A), read8AtHl()));
+            setRegFlags(Reg.A, Alu.or(reg(Reg.A), read8AtHl()));
         }
             break;
         case XOR_A_R8: {
             setRegFlags(Reg.A,
-                    Alu.xor(reg8.get(Reg.A), reg8.get(extractReg(opcode, 0))));
+                    Alu.xor(reg(Reg.A), reg(extractReg(opcode, 0))));
         }
             break;
         case XOR_A_N8: {
-            setRegFlags(Reg.A, Alu.xor(reg8.get(Reg.A), read8AfterOpcode()));
+            setRegFlags(Reg.A, Alu.xor(reg(Reg.A), read8AfterOpcode()));
         }
             break;
         case XOR_A_HLR: {
-            setRegFlags(Reg.A, Alu.xor(reg8.get(Reg.A), read8AtHl()));
+            setRegFlags(Reg.A, Alu.xor(reg(Reg.A), read8AtHl()));
         }
             break;
         case CPL: {
-            int cpl = Bits.complement8(reg8.get(Reg.A));
-            reg8.set(Reg.A, cpl);
+            int cpl = Bits.complement8(reg(Reg.A));
+            setReg(Reg.A, cpl);
             combineAluFlags(cpl, FlagSrc.CPU, FlagSrc.V1, FlagSrc.V1,
                     FlagSrc.CPU);
         }
@@ -547,15 +2118,15 @@ public final class Cpu implements Component, Clocked {
 
         // Rotate, shift
         case ROTCA: {
-            int rot = Alu.rotate(extractDir(opcode), reg8.get(Reg.A));
+            int rot = Alu.rotate(extractDir(opcode), reg(Reg.A));
             setRegFromAlu(Reg.A, rot);
             combineAluFlags(rot, FlagSrc.V0, FlagSrc.V0, FlagSrc.V0,
                     FlagSrc.ALU);
         }
             break;
         case ROTA: {
-            int rot = Alu.rotate(extractDir(opcode), reg8.get(Reg.A),
-                    reg8.testBit(Reg.F, Flag.C));
+            int rot = Alu.rotate(extractDir(opcode), reg(Reg.A),
+                    carryFlag());
             setRegFromAlu(Reg.A, rot);
             combineAluFlags(rot, FlagSrc.V0, FlagSrc.V0, FlagSrc.V0,
                     FlagSrc.ALU);
@@ -563,14 +2134,14 @@ public final class Cpu implements Component, Clocked {
             break;
         case ROTC_R8: {
             Reg r = extractReg(opcode, 0);
-            int rot = Alu.rotate(extractDir(opcode), reg8.get(r));
+            int rot = Alu.rotate(extractDir(opcode), reg(r));
             setRegFlags(r, rot);
         }
             break;
         case ROT_R8: {
             Reg r = extractReg(opcode, 0);
-            int rot = Alu.rotate(extractDir(opcode), reg8.get(r),
-                    reg8.testBit(Reg.F, Flag.C));
+            int rot = Alu.rotate(extractDir(opcode), reg(r),
+                    carryFlag());
             setRegFlags(r, rot);
         }
             break;
@@ -581,13 +2152,13 @@ public final class Cpu implements Component, Clocked {
             break;
         case ROT_HLR: {
             int rot = Alu.rotate(extractDir(opcode), read8AtHl(),
-                    reg8.testBit(Reg.F, Flag.C));
+                    carryFlag());
             write8AtHlAndSetFlags(rot);
         }
             break;
         case SWAP_R8: {
             Reg r = extractReg(opcode, 0);
-            int swap = Alu.swap(reg8.get(r));
+            int swap = Alu.swap(reg(r));
             setRegFlags(r, swap);
         }
             break;
@@ -598,19 +2169,19 @@ public final class Cpu implements Component, Clocked {
             break;
         case SLA_R8: {
             Reg r = extractReg(opcode, 0);
-            int shiftL = Alu.shiftLeft(reg8.get(r));
+            int shiftL = Alu.shiftLeft(reg(r));
             setRegFlags(r, shiftL);
         }
             break;
         case SRA_R8: {
             Reg r = extractReg(opcode, 0);
-            int shiftR = Alu.shiftRightA(reg8.get(r));
+            int shiftR = Alu.shiftRightA(reg(r));
             setRegFlags(r, shiftR);
         }
             break;
         case SRL_R8: {
             Reg r = extractReg(opcode, 0);
-            int shiftR = Alu.shiftRightL(reg8.get(r));
+            int shiftR = Alu.shiftRightL(reg(r));
             setRegFlags(r, shiftR);
         }
             break;
@@ -632,7 +2203,7 @@ public final class Cpu implements Component, Clocked {
 
         // Bit test and set
         case BIT_U3_R8: {
-            int test = Alu.testBit(reg8.get(extractReg(opcode, 0)),
+            int test = Alu.testBit(reg(extractReg(opcode, 0)),
                     extract(opcode));
             combineAluFlags(test, FlagSrc.ALU, FlagSrc.V0, FlagSrc.V1,
                     FlagSrc.CPU);
@@ -647,10 +2218,10 @@ public final class Cpu implements Component, Clocked {
         case CHG_U3_R8: {
             Reg r = extractReg(opcode, 0);
             if (!Bits.test(opcode.encoding, 6)) {
-                reg8.set(r,
-                        reg8.get(r) & Bits.complement8(1 << extract(opcode)));
+                setReg(r,
+                        reg(r) & Bits.complement8(1 << extract(opcode)));
             } else {
-                reg8.set(r, reg8.get(r) | (1 << extract(opcode)));
+                setReg(r, reg(r) | (1 << extract(opcode)));
             }
         }
             break;
@@ -667,9 +2238,9 @@ public final class Cpu implements Component, Clocked {
         // Misc. ALU
         case DAA: {
             ;
-            int adjust = Alu.bcdAdjust(reg8.get(Reg.A),
-                    reg8.testBit(Reg.F, Flag.N), reg8.testBit(Reg.F, Flag.H),
-                    reg8.testBit(Reg.F, Flag.C));
+            int adjust = Alu.bcdAdjust(reg(Reg.A),
+                    Bits.test(f(), Flag.N), Bits.test(f(), Flag.H),
+                    carryFlag());
             setRegFromAlu(Reg.A, adjust);
             combineAluFlags(adjust, FlagSrc.ALU, FlagSrc.CPU, FlagSrc.V0,
                     FlagSrc.ALU);
@@ -787,7 +2358,8 @@ public final class Cpu implements Component, Clocked {
     }
 
     /**
-     * attache le cpu au bus donné
+     * attache le cpu au bus donné, pour le registre IF, la mémoire vive haute
+     * et le registre IE
      * 
      * @param bus
      *            donne le bus à attacher au processeur
@@ -795,20 +2367,30 @@ public final class Cpu implements Component, Clocked {
     @Override
     public void attachTo(Bus bus) {
         this.bus = bus;
-        bus.attach(this);
+        bus.attach(this, AddressMap.REG_IF, AddressMap.REG_IF + 1);
+        bus.attach(this, AddressMap.HIGH_RAM_START, AddressMap.REG_IE + 1);
     }
 
     /**
-     * lit depuis le bus la valeur à l'addresse donnée
+     * lit depuis le bus la valeur à l'addresse donnée, sans la vérifier : les
+     * adresses calculées par le processeur sont par construction des valeurs
+     * 16 bits
      * 
      * @param address
      *            addresse dont on va lire la valeur
      * @return la valeur qui est à l'addresse donnée depuis le bus
-     * @throws IllegalArgumentException
-     *             si l'adresse n'est pas une valeur 16 bits
      */
     private int read8(int address) {
-        return bus.read(address);
+        if (idleBlock != null)
+            idleLimit = Math.min(idleLimit,
+                    bus.nextChangeCycle(address, currentCycle));
+        // La mémoire haute appartient au processeur, inutile de passer par le
+        // bus ; la mémoire morte et la mémoire de travail y sont lues
+        // directement dans leur tableau
+        if (address >= AddressMap.HIGH_RAM_START
+                && address < AddressMap.HIGH_RAM_END)
+            return highRam.readUnchecked(address - AddressMap.HIGH_RAM_START);
+        return bus.readUnchecked(address);
 
     }
 
@@ -818,13 +2400,10 @@ public final class Cpu implements Component, Clocked {
      * 
      * @return la valeur qui est à l'addresse contenue dans le registre HL
      *         depuis le bus
-     * @throws IllegalArgumentException
-     *             si l'adresse n'est pas une valeur 16 bits
-     * 
      */
 
     private int read8AtHl() {
-        return read8(reg16(Reg16.HL));
+        return read8((H << 8) | L);
     }
 
     /**
@@ -844,14 +2423,12 @@ public final class Cpu implements Component, Clocked {
 
     /**
      * lit depuis le bus la valeur contenue à l'addresse donnée et à l'addresse
-     * donnée +1
+     * donnée +1, l'adresse n'étant vérifiée que par une assertion
      * 
      * @param address
      *            donne l'addresse ou on doit prendre les valeurs
      * @return la valeur lue depuis le bus la valeur contenue à l'addresse
      *         donnée et à l'addresse donnée +1
-     * @throws IllegalArgumentException
-     *             si l'adresse n'est pas une valeur 16 bits
      */
     private int read16(int address) {
         assert address < 0xFFFF;
@@ -876,34 +2453,39 @@ public final class Cpu implements Component, Clocked {
     }
 
     /**
-     * écrit sur le bus, à l'addresse donnée la valeur 8 bits donnée
+     * écrit sur le bus, à l'addresse donnée la valeur 8 bits donnée, l'adresse
+     * et la valeur n'étant vérifiées que par une assertion
      * 
      * @param address
      *            donne l'addresse ou on va écrire la valeur donnée
      * @param v
      *            donne la valeur à écrire ans l'addresse donnée du bus
-     * @throws IllegalArgumentException
-     *             si l'adresse n'est pas une valeur 16 bits
      */
     private void write8(int address, int v) {
-        bus.write(address, v);
+        assert address >= 0 && address <= 0xFFFF && v >= 0 && v <= 0xFF;
+        bus.writeUnchecked(address, v);
+        invalidateCode(address, v);
+        if (address >= AddressMap.REGS_START
+                && (address < AddressMap.HIGH_RAM_START
+                        || address == AddressMap.REG_IE))
+            ioWritten = true;
     }
 
     /**
-     * écrit sur le bus, à l'addresse donnée la valeur 16 bits donnée
+     * écrit sur le bus, à l'addresse donnée la valeur 16 bits donnée,
+     * l'adresse n'étant vérifiée que par une assertion
      * 
      * @param address
      *            donne l'addresse ou on va écrire la valeur donnée
      * @param v
      *            donne la valeur à écrire ans l'addresse donnée du bus
-     * @throws IllegalArgumentException
-     *             si l'adresse n'est pas une valeur 16 bits ou si la donnée
-     *             n'est pas une valeur 8 bits
      */
     private void write16(int address, int v) {
         assert address < 0xFFFF;
-        bus.write(Bits.clip(16, address + 1), Bits.extract(v, 8, 8));
-        bus.write(address, Bits.clip(8, v));
+        bus.writeUnchecked(Bits.clip(16, address + 1), Bits.extract(v, 8, 8));
+        bus.writeUnchecked(address, Bits.clip(8, v));
+        invalidateCode(Bits.clip(16, address + 1), Bits.extract(v, 8, 8));
+        invalidateCode(address, Bits.clip(8, v));
     }
 
     /**
@@ -912,11 +2494,9 @@ public final class Cpu implements Component, Clocked {
      * 
      * @param v
      *            valeur 8 bits à écrire dans le bus.
-     * @throws IllegalArgumentException
-     *             si la valeur donnée n'est pas une valeur 8 bits
      */
     private void write8AtHl(int v) {
-        write8(reg16(Reg16.HL), v);
+        write8((H << 8) | L, v);
     }
 
     /**
@@ -960,8 +2540,8 @@ public final class Cpu implements Component, Clocked {
      */
     private int reg16(Reg16 r) {
 
-        int a = reg8.get(r.r1);
-        int b = reg8.get(r.r2);
+        int a = reg(r.r1);
+        int b = reg(r.r2);
 
         return Bits.make16(a, b);
     }
@@ -979,17 +2559,17 @@ public final class Cpu implements Component, Clocked {
     private void setReg16(Reg16 r, int newV) {
         if (r == Reg16.AF) {
             int c = newV & 0b11110000;
-            reg8.set(r.r2, c);
+            setReg(r.r2, c);
             int b = Bits.extract(newV, 8, 8);
-            reg8.set(r.r1, b);
+            setReg(r.r1, b);
         }
 
         else {
 
             int a = Bits.clip(8, newV);
             int b = Bits.extract(newV, 8, 8);
-            reg8.set(r.r1, b);
-            reg8.set(r.r2, a);
+            setReg(r.r1, b);
+            setReg(r.r2, a);
 
         }
 
@@ -1008,8 +2588,8 @@ public final class Cpu implements Component, Clocked {
         if (r == Reg16.AF) {
             SP = newV;
         } else {
-            reg8.set(r.r2, Bits.clip(8, newV));
-            reg8.set(r.r1, Bits.extract(newV, 8, 8));
+            setReg(r.r2, Bits.clip(8, newV));
+            setReg(r.r1, Bits.extract(newV, 8, 8));
 
         }
     }
@@ -1022,7 +2602,7 @@ public final class Cpu implements Component, Clocked {
      *            donne l'instruction à éxécuter
      * @return RotDir.RIGHT si le 4ieme bit vaut 1 sinon RotDir.LEFT
      */
-    private RotDir extractDir(Opcode opcode) {
+    private static RotDir extractDir(Opcode opcode) {
 
         if (Bits.test(opcode.encoding, 3)) {
             return RotDir.RIGHT;
@@ -1042,7 +2622,7 @@ public final class Cpu implements Component, Clocked {
      * @return le registre contenu dans les 3 bits de l'opcode donné qui indique
      *         le registre
      */
-    private Reg extractReg(Opcode opcode, int startBit) {
+    private static Reg extractReg(Opcode opcode, int startBit) {
 
         Reg a = null;
 
@@ -1084,7 +2664,7 @@ public final class Cpu implements Component, Clocked {
      * @return le registre donné dans la paire de bits qui indique les registres
      *         dans l'opcode donné
      */
-    private Reg16 extractReg16(Opcode opcode) {
+    private static Reg16 extractReg16(Opcode opcode) {
         Reg16 a = null;
 
         switch (Bits.extract(opcode.encoding, 4, 2)) {
@@ -1112,7 +2692,7 @@ public final class Cpu implements Component, Clocked {
      *            donne l'instruction ou le bit est à tester,
      * @return 1 ou -1 en fonction du 4ieme bit, s'il vaut 1 retourne -1 sinon 1
      */
-    private int extractHlIncrement(Opcode opcode) {
+    private static int extractHlIncrement(Opcode opcode) {
         int a;
         if (Bits.test(opcode.encoding, 4)) {
             a = -1;
@@ -1135,20 +2715,30 @@ public final class Cpu implements Component, Clocked {
      */
     @Override
     public void write(int address, int data) {
-        if (Preconditions.checkBits16(address) == AddressMap.REG_IE) {
+        writeUnchecked(Preconditions.checkBits16(address),
+                Preconditions.checkBits8(data));
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see ch.epfl.gameboj.component.Component#writeUnchecked(int, int)
+     */
+    @Override
+    public void writeUnchecked(int address, int data) {
+        if (address == AddressMap.REG_IE) {
 
-            IE = Preconditions.checkBits16(data);
+            setIE(data);
 
         } else if (address == AddressMap.REG_IF) {
 
-            IF = Preconditions.checkBits16(data);
+            setIF(data);
         }
 
         else if (address >= AddressMap.HIGH_RAM_START
                 && address < AddressMap.HIGH_RAM_END) {
 
-            highRam.write(address - AddressMap.HIGH_RAM_START,
-                    Preconditions.checkBits16(data));
+            highRam.writeUnchecked(address - AddressMap.HIGH_RAM_START, data);
         }
     }
 
@@ -1159,8 +2749,18 @@ public final class Cpu implements Component, Clocked {
      */
     @Override
     public int read(int address) {
+        return readUnchecked(Preconditions.checkBits16(address));
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see ch.epfl.gameboj.component.Component#readUnchecked(int)
+     */
+    @Override
+    public int readUnchecked(int address) {
         int a = NO_DATA;
-        if (Preconditions.checkBits16(address) == AddressMap.REG_IE) {
+        if (address == AddressMap.REG_IE) {
 
             a = IE;
 
@@ -1172,7 +2772,7 @@ public final class Cpu implements Component, Clocked {
         else if (address >= AddressMap.HIGH_RAM_START
                 && address < AddressMap.HIGH_RAM_END) {
 
-            a = highRam.read(address - AddressMap.HIGH_RAM_START);
+            a = highRam.readUnchecked(address - AddressMap.HIGH_RAM_START);
         }
 
         return a;
@@ -1190,7 +2790,7 @@ public final class Cpu implements Component, Clocked {
      *            les fanions
      */
     public void setRegFromAlu(Reg r, int vf) {
-        reg8.set(r, Alu.unpackValue(vf));
+        setReg(r, Alu.unpackValue(vf));
     }
 
     /**
@@ -1200,7 +2800,7 @@ public final class Cpu implements Component, Clocked {
      *            valeur dont on extrait les fanions
      */
     public void setFlags(int valueFlags) {
-        reg8.set(Reg.F, Alu.unpackFlags(valueFlags));
+        setF(Alu.unpackFlags(valueFlags));
     }
 
     /**
@@ -1249,108 +2849,73 @@ public final class Cpu implements Component, Clocked {
      */
     public void combineAluFlags(int vf, FlagSrc z, FlagSrc n, FlagSrc h,
             FlagSrc c) {
-        switch (c) {
-        case V0: {
-            reg8.setBit(Reg.F, Flag.values()[4], false);
-        }
-            break;
-        case V1: {
-            reg8.setBit(Reg.F, Flag.values()[4], true);
-        }
-            break;
-        case ALU: {
-            reg8.setBit(Reg.F, Flag.values()[4],
-                    Bits.test(Alu.unpackFlags(vf), 4));
-        }
-            break;
-        case CPU: {
-            reg8.setBit(Reg.F, Flag.values()[4], Bits.test(reg8.get(Reg.F), 4));
-        }
-            break;
-        }
-        switch (h) {
-        case V0: {
-            reg8.setBit(Reg.F, Flag.values()[5], false);
-        }
-            break;
-        case V1: {
-            reg8.setBit(Reg.F, Flag.values()[5], true);
-        }
-            break;
-        case ALU: {
-            reg8.setBit(Reg.F, Flag.values()[5],
-                    Bits.test(Alu.unpackFlags(vf), 5));
-        }
-            break;
-        case CPU: {
-            reg8.setBit(Reg.F, Flag.values()[5], Bits.test(reg8.get(Reg.F), 5));
-        }
-            break;
-        }
-        switch (n) {
-        case V0: {
-            reg8.setBit(Reg.F, Flag.values()[6], false);
-        }
-            break;
-        case V1: {
-            reg8.setBit(Reg.F, Flag.values()[6], true);
-        }
-            break;
-        case ALU: {
-            reg8.setBit(Reg.F, Flag.values()[6],
-                    Bits.test(Alu.unpackFlags(vf), 6));
-        }
-            break;
-        case CPU: {
-            reg8.setBit(Reg.F, Flag.values()[6], Bits.test(reg8.get(Reg.F), 6));
-        }
-            break;
-        }
-        switch (z) {
-        case V0: {
-            reg8.setBit(Reg.F, Flag.values()[7], false);
-        }
-            break;
-        case V1: {
-            reg8.setBit(Reg.F, Flag.values()[7], true);
-        }
-            break;
-        case ALU: {
-            reg8.setBit(Reg.F, Flag.values()[7],
-                    Bits.test(Alu.unpackFlags(vf), 7));
-        }
-            break;
-        case CPU: {
-            reg8.setBit(Reg.F, Flag.values()[7], Bits.test(reg8.get(Reg.F), 7));
-        }
-            break;
-        }
+        int aluFlags = Alu.unpackFlags(vf);
+        int cpuFlags = f();
 
-        reg8.set(Reg.F, reg8.get(Reg.F));
+        setF(flagBit(z, MASK_Z, aluFlags, cpuFlags)
+                | flagBit(n, MASK_N, aluFlags, cpuFlags)
+                | flagBit(h, MASK_H, aluFlags, cpuFlags)
+                | flagBit(c, MASK_C, aluFlags, cpuFlags));
+    }
 
+    /**
+     * donne le fanion du masque donné selon sa source
+     * 
+     * @param src
+     *            donne la source du fanion
+     * @param mask
+     *            donne le masque du fanion dans le registre F
+     * @param aluFlags
+     *            donne les fanions produits par l'ALU
+     * @param cpuFlags
+     *            donne les fanions actuels du processeur
+     * @return le fanion, à sa position dans F
+     */
+    private static int flagBit(FlagSrc src, int mask, int aluFlags,
+            int cpuFlags) {
+        switch (src) {
+        case V0:
+            return 0;
+        case V1:
+            return mask;
+        case ALU:
+            return aluFlags & mask;
+        default:
+            return cpuFlags & mask;
+        }
     }
 
     public boolean extractCC(Opcode opcode) {
-        int a = Bits.extract(opcode.encoding, 3, 2);
+        return testCondition(Bits.extract(opcode.encoding, 3, 2));
+    }
+
+    /**
+     * évalue la condition d'index donné (NZ, Z, NC ou C) selon les fanions
+     * 
+     * @param a
+     *            donne l'index de la condition, entre 0 et 3
+     * @return vrai si la condition est remplie
+     */
+    private boolean testCondition(int a) {
         boolean Return = true;
         switch (a) {
         case 0: {
-            Return = !reg8.testBit(Reg.F, Flag.Z);
+            Return = !zeroFlag();
 
         }
             break;
         case 1: {
-            Return = reg8.testBit(Reg.F, Flag.Z);
+            Return = zeroFlag();
 
         }
             break;
         case 2: {
-            Return = !reg8.testBit(Reg.F, Flag.C);
+            Return = !carryFlag();
 
         }
             break;
         case 3: {
-            Return = reg8.testBit(Reg.F, Flag.C);
+            Return = carryFlag();
         }
             break;
 
@@ -1370,12 +2935,22 @@ public final class Cpu implements Component, Clocked {
      */
     public boolean carry1(Opcode opcode) {
 
-        boolean c = Bits.test(reg8.get(Reg.F), 4);
-        boolean b = Bits.test(opcode.encoding, 3);
-        return (c & b);
+        return carryIf(Bits.test(opcode.encoding, 3));
 
     }
 
+    /**
+     * donne la retenue d'entrée d'une instruction qui l'utilise ou non
+     * 
+     * @param withCarry
+     *            vrai si l'instruction utilise la retenue
+     * @return vrai si withCarry est vrai et que le fanion C vaut 1
+     */
+    private boolean carryIf(boolean withCarry) {
+
+        return withCarry && carryFlag();
+    }
+
     /**
      * donne l'inverse de la focntion carry1
      * 
@@ -1388,34 +2963,197 @@ public final class Cpu implements Component, Clocked {
         return !carry1(opcode);
     }
 
-    private boolean testIeIf() {
+    private boolean getIME() {
+        return IME;
 
-        return (IF & IE) != 0;
+    }
 
+    /**
+     * donne la valeur du registre F, en calculant les fanions laissés en
+     * attente par la dernière opération arithmétique
+     * 
+     * @return la valeur du registre F
+     */
+    private int f() {
+        if (lazyOp != LAZY_NONE) {
+            int l = lazyL, r = lazyR, x = lazyX, res = lazyResult;
+            int z = (res & 0xFF) == 0 ? MASK_Z : 0;
+
+            switch (lazyOp) {
+            case LAZY_ADD:
+                F = z | ((l & 0xF) + (r & 0xF) + x > 0xF ? MASK_H : 0)
+                        | (res > 0xFF ? MASK_C : 0);
+                break;
+            case LAZY_SUB:
+                F = z | MASK_N | ((l & 0xF) < (r & 0xF) + x ? MASK_H : 0)
+                        | (res < 0 ? MASK_C : 0);
+                break;
+            case LAZY_INC:
+                F = z | ((l & 0xF) == 0xF ? MASK_H : 0) | x;
+                break;
+            default:
+                F = z | MASK_N | ((l & 0xF) == 0 ? MASK_H : 0) | x;
+                break;
+            }
+            lazyOp = LAZY_NONE;
+        }
+        return F;
     }
 
-    private boolean getIME() {
-        return IME;
+    /**
+     * donne le fanion Z sans forcer le calcul des autres fanions
+     * 
+     * @return vrai si le fanion Z vaut 1
+     */
+    private boolean zeroFlag() {
+        if (lazyOp != LAZY_NONE)
+            return (lazyResult & 0xFF) == 0;
+        return (F & MASK_Z) != 0;
+    }
 
+    /**
+     * donne le fanion C sans forcer le calcul des autres fanions
+     * 
+     * @return vrai si le fanion C vaut 1
+     */
+    private boolean carryFlag() {
+        switch (lazyOp) {
+        case LAZY_NONE:
+            return (F & MASK_C) != 0;
+        case LAZY_ADD:
+            return lazyResult > 0xFF;
+        case LAZY_SUB:
+            return lazyResult < 0;
+        default:
+            return lazyX != 0;
+        }
+    }
+
+    /**
+     * mémorise une opération dont les fanions seront calculés plus tard
+     * 
+     * @param op
+     *            donne le genre d'opération
+     * @param l
+     *            donne le premier opérande
+     * @param r
+     *            donne le second opérande
+     * @param x
+     *            donne la retenue d'entrée, ou le fanion C conservé pour un
+     *            incrément ou un décrément
+     * @param result
+     *            donne le résultat non tronqué de l'opération
+     */
+    private void setLazyFlags(int op, int l, int r, int x, int result) {
+        lazyOp = op;
+        lazyL = l;
+        lazyR = r;
+        lazyX = x;
+        lazyResult = result;
     }
 
     private void setF(int a) {
-        Preconditions.checkBits8(a);
-        reg8.set(Reg.F, a);
+        F = a & 0xF0;
+        lazyOp = LAZY_NONE;
+    }
 
+    /**
+     * donne la valeur du registre 8 bits donné
+     * 
+     * @param r
+     *            donne le registre
+     * @return la valeur du registre
+     */
+    private int reg(Reg r) {
+        switch (r) {
+        case A:
+            return A;
+        case F:
+            return f();
+        case B:
+            return B;
+        case C:
+            return C;
+        case D:
+            return D;
+        case E:
+            return E;
+        case H:
+            return H;
+        default:
+            return L;
+        }
     }
 
+    /**
+     * modifie la valeur du registre 8 bits donné
+     * 
+     * @param r
+     *            donne le registre
+     * @param v
+     *            donne la nouvelle valeur, sur 8 bits
+     */
+    private void setReg(Reg r, int v) {
+        switch (r) {
+        case A:
+            A = v;
+            break;
+        case F:
+            setF(v);
+            break;
+        case B:
+            B = v;
+            break;
+        case C:
+            C = v;
+            break;
+        case D:
+            D = v;
+            break;
+        case E:
+            E = v;
+            break;
+        case H:
+            H = v;
+            break;
+        default:
+            L = v;
+            break;
+        }
+    }
+
+    /**
+     * change le registre IE et met à jour les interruptions en attente
+     * 
+     * @param a
+     *            la nouvelle valeur de IE
+     */
     private void setIE(int a) {
         IE = a;
+        pendingInterrupts = IF & IE;
     }
 
+    /**
+     * change le registre IF et met à jour les interruptions en attente
+     * 
+     * @param a
+     *            la nouvelle valeur de IF
+     */
     private void setIF(int a) {
         IF = a;
+        pendingInterrupts = IF & IE;
     }
 
+    /**
+     * lève l'interruption donnée ; si elle est activée, un processeur arrêté
+     * se réveille dès que l'ordonnanceur l'interroge à nouveau
+     * 
+     * @param i
+     *            l'interruption à lever
+     */
     public void requestInterrupt(Interrupt i) {
 
-        IF = Bits.set(IF, i.index(), true);
+        setIF(IF | i.mask());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,205 @@
+package ch.epfl.gameboj.component.cpu;
+
+import ch.epfl.gameboj.component.cpu.Alu.RotDir;
+
+/**
+ * variante de l'unité arithmétique et logique qui lit les résultats dans des
+ * tables plutôt que de les calculer. Les tables sont remplies une seule fois à
+ * l'initialisation de la classe, au moyen de {@link Alu}, et partagées par
+ * tous les processeurs. Les arguments ne sont pas vérifiés : ce sont des
+ * valeurs 8 bits provenant des registres ou du bus.
+ */
+public final class TableAlu {
+
+    private static final int CARRY_IN = 1 << 16;
+
+    // (c << 16) | (l << 8) | r
+    private static final int[] ADD = new int[2 * CARRY_IN];
+    private static final int[] SUB = new int[2 * CARRY_IN];
+
+    // (n << 10) | (h << 9) | (c << 8) | v
+    private static final int[] BCD_ADJUST = new int[8 << 8];
+
+    // (d << 8) | v, et (d << 9) | (c << 8) | v avec la retenue
+    private static final int[] ROTATE = new int[2 << 8];
+    private static final int[] ROTATE_CARRY = new int[4 << 8];
+
+    private static final int[] SHIFT_LEFT = new int[1 << 8];
+    private static final int[] SHIFT_RIGHT_A = new int[1 << 8];
+    private static final int[] SHIFT_RIGHT_L = new int[1 << 8];
+    private static final int[] SWAP = new int[1 << 8];
+
+    static {
+        RotDir[] dirs = RotDir.values();
+        for (int v = 0; v < 0x100; ++v) {
+            for (int r = 0; r < 0x100; ++r) {
+                ADD[v << 8 | r] = Alu.add(v, r, false);
+                ADD[CARRY_IN | v << 8 | r] = Alu.add(v, r, true);
+                SUB[v << 8 | r] = Alu.sub(v, r, false);
+                SUB[CARRY_IN | v << 8 | r] = Alu.sub(v, r, true);
+            }
+            for (int nhc = 0; nhc < 8; ++nhc)
+                BCD_ADJUST[nhc << 8 | v] = Alu.bcdAdjust(v, (nhc & 4) != 0,
+                        (nhc & 2) != 0, (nhc & 1) != 0);
+            for (RotDir d : dirs) {
+                int i = d.ordinal();
+                ROTATE[i << 8 | v] = Alu.rotate(d, v);
+                ROTATE_CARRY[i << 9 | v] = Alu.rotate(d, v, false);
+                ROTATE_CARRY[i << 9 | 1 << 8 | v] = Alu.rotate(d, v, true);
+            }
+            SHIFT_LEFT[v] = Alu.shiftLeft(v);
+            SHIFT_RIGHT_A[v] = Alu.shiftRightA(v);
+            SHIFT_RIGHT_L[v] = Alu.shiftRightL(v);
+            SWAP[v] = Alu.swap(v);
+        }
+    }
+
+    private TableAlu() {
+    }
+
+    /**
+     * même résultat que {@link Alu#add(int, int, boolean)}
+     *
+     * @param l
+     *            premier terme, sur 8 bits
+     * @param r
+     *            second terme, sur 8 bits
+     * @param c0
+     *            retenue initiale
+     * @return la somme et les fanions Z0HC
+     */
+    public static int add(int l, int r, boolean c0) {
+        return ADD[(c0 ? CARRY_IN : 0) | l << 8 | r];
+    }
+
+    /**
+     * même résultat que {@link Alu#add(int, int)}
+     *
+     * @param l
+     *            premier terme, sur 8 bits
+     * @param r
+     *            second terme, sur 8 bits
+     * @return la somme et les fanions Z0HC
+     */
+    public static int add(int l, int r) {
+        return ADD[l << 8 | r];
+    }
+
+    /**
+     * même résultat que {@link Alu#sub(int, int, boolean)}
+     *
+     * @param l
+     *            valeur dont on soustrait r, sur 8 bits
+     * @param r
+     *            valeur soustraite, sur 8 bits
+     * @param b0
+     *            emprunt initial
+     * @return la différence et les fanions Z1HC
+     */
+    public static int sub(int l, int r, boolean b0) {
+        return SUB[(b0 ? CARRY_IN : 0) | l << 8 | r];
+    }
+
+    /**
+     * même résultat que {@link Alu#sub(int, int)}
+     *
+     * @param l
+     *            valeur dont on soustrait r, sur 8 bits
+     * @param r
+     *            valeur soustraite, sur 8 bits
+     * @return la différence et les fanions Z1HC
+     */
+    public static int sub(int l, int r) {
+        return SUB[l << 8 | r];
+    }
+
+    /**
+     * même résultat que {@link Alu#bcdAdjust(int, boolean, boolean, boolean)}
+     *
+     * @param v
+     *            valeur à ajuster, sur 8 bits
+     * @param n
+     *            fanion N
+     * @param h
+     *            fanion H
+     * @param c
+     *            fanion C
+     * @return la valeur ajustée et les fanions ZN0C
+     */
+    public static int bcdAdjust(int v, boolean n, boolean h, boolean c) {
+        return BCD_ADJUST[(n ? 4 << 8 : 0) | (h ? 2 << 8 : 0)
+                | (c ? 1 << 8 : 0) | v];
+    }
+
+    /**
+     * même résultat que {@link Alu#rotate(RotDir, int)}
+     *
+     * @param d
+     *            direction de la rotation
+     * @param v
+     *            valeur à tourner, sur 8 bits
+     * @return la valeur tournée et les fanions Z00C
+     */
+    public static int rotate(RotDir d, int v) {
+        return ROTATE[d.ordinal() << 8 | v];
+    }
+
+    /**
+     * même résultat que {@link Alu#rotate(RotDir, int, boolean)}
+     *
+     * @param d
+     *            direction de la rotation
+     * @param v
+     *            valeur à tourner, sur 8 bits
+     * @param c
+     *            retenue
+     * @return la valeur tournée et les fanions Z00C
+     */
+    public static int rotate(RotDir d, int v, boolean c) {
+        return ROTATE_CARRY[d.ordinal() << 9 | (c ? 1 << 8 : 0) | v];
+    }
+
+    /**
+     * même résultat que {@link Alu#shiftLeft(int)}
+     *
+     * @param v
+     *            valeur à décaler, sur 8 bits
+     * @return la valeur décalée et les fanions Z00C
+     */
+    public static int shiftLeft(int v) {
+        return SHIFT_LEFT[v];
+    }
+
+    /**
+     * même résultat que {@link Alu#shiftRightA(int)}
+     *
+     * @param v
+     *            valeur à décaler, sur 8 bits
+     * @return la valeur décalée et les fanions Z00C
+     */
+    public static int shiftRightA(int v) {
+        return SHIFT_RIGHT_A[v];
+    }
+
+    /**
+     * même résultat que {@link Alu#shiftRightL(int)}
+     *
+     * @param v
+     *            valeur à décaler, sur 8 bits
+     * @return la valeur décalée et les fanions Z00C
+     */
+    public static int shiftRightL(int v) {
+        return SHIFT_RIGHT_L[v];
+    }
+
+    /**
+     * même résultat que {@link Alu#swap(int)}
+     *
+     * @param v
+     *            valeur dont on échange les moitiés, sur 8 bits
+     * @return la valeur échangée et les fanions Z000
+     */
+    public static int swap(int v) {
+        return SWAP[v];
+    }
+}
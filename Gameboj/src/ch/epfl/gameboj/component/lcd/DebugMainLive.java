@@ -75,9 +75,10 @@ public final class DebugMainLive extends Application {
         LcdImage lcdImage = gb.getLcdController().currentImage();
         BufferedImage bufferedImage = new BufferedImage(lcdImage.getWidth(),
                 lcdImage.getHeight(), BufferedImage.TYPE_INT_RGB);
-        for (int y = 0; y < lcdImage.getHeight(); ++y)
-            for (int x = 0; x < lcdImage.getWidth(); ++x)
-                bufferedImage.setRGB(x, y, COLOR_MAP[lcdImage.getColor(x, y)]);
+        int[] argb = new int[lcdImage.getWidth() * lcdImage.getHeight()];
+        lcdImage.copyPixels(argb, COLOR_MAP);
+        bufferedImage.setRGB(0, 0, lcdImage.getWidth(), lcdImage.getHeight(),
+                argb, 0, lcdImage.getWidth());
         return SwingFXUtils.toFXImage(bufferedImage, null);
     }
 
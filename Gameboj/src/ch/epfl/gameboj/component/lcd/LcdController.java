@@ -11,6 +11,7 @@ import ch.epfl.gameboj.Register;
 import ch.epfl.gameboj.RegisterFile;
 import ch.epfl.gameboj.bits.BitVector;
 import ch.epfl.gameboj.bits.Bits;
+import ch.epfl.gameboj.bits.MutableBitVector;
 import ch.epfl.gameboj.component.Clocked;
 import ch.epfl.gameboj.component.Component;
 import ch.epfl.gameboj.component.cpu.Cpu;
@@ -46,8 +47,8 @@ public final class LcdController implements Clocked, Component {
     private final int TILE_ADDRESS_OVERFLOW = 128;
 
     // *Copy*
-    private boolean dmaChanged = false;
-    private int cyclesSinceCopy = 0;
+    private long dmaEndCycle = Long.MAX_VALUE;
+    private final int OAM_BLOCKED = 0xFF;
 
     // *Cycles*
     private final int LINE_CYCLES = 114;
@@ -55,6 +56,8 @@ public final class LcdController implements Clocked, Component {
     private long lcdOnCycle = 0;
     private int cyclesSinceLine = 0;
     private final int IMAGE_CYCLES = 17556;
+    private long nextInterruptCycle = Long.MAX_VALUE;
+    private boolean nextInterruptCycleValid = false;
     private LcdImage.Builder nextImageBuilder;
 
     // *Sprites*
@@ -78,6 +81,52 @@ public final class LcdController implements Clocked, Component {
     final static private LcdImageLine NULL_LINE = new LcdImageLine(NULL_VECTOR,
             NULL_VECTOR, NULL_VECTOR);
 
+    // *Rendu direct*
+    // tampon de l'image en cours, cédé à l'image terminée
+    private byte[] frameBuffer;
+    private boolean imageLineRenderer = false;
+    private boolean requestedImageLineRenderer = false;
+    private final byte[] backgroundRow = new byte[BACKGROUND_WIDTH];
+    private final byte[] windowRow = new byte[BACKGROUND_WIDTH];
+    private final int[] spritesBehind = new int[LCD_WIDTH];
+    private final int[] spritesInFront = new int[LCD_WIDTH];
+
+    // *Saut d'images*
+    private boolean rendering = true;
+    private int frameSkip = 0;
+    private int skippedFrames = Integer.MAX_VALUE;
+    private boolean renderingFrame = true;
+
+    // *Lignes de travail*
+    private final MutableLcdImageLine workBackground = new MutableLcdImageLine(
+            BACKGROUND_WIDTH);
+    private final MutableLcdImageLine workLine = new MutableLcdImageLine(
+            LCD_WIDTH);
+    private final MutableLcdImageLine workLayer = new MutableLcdImageLine(
+            LCD_WIDTH);
+    private final MutableLcdImageLine workSpritesBelow = new MutableLcdImageLine(
+            LCD_WIDTH);
+    private final MutableLcdImageLine workSpritesInFront = new MutableLcdImageLine(
+            LCD_WIDTH);
+    private final MutableLcdImageLine workSprite = new MutableLcdImageLine(
+            LCD_WIDTH);
+    private final MutableBitVector workOpacity = new MutableBitVector(
+            LCD_WIDTH);
+
+    // *Cache des tuiles*
+    private final int TILE_COUNT = 384;
+    private final int TILE_DATA_END = 0x9800;
+    private final byte[] tilePixels = new byte[TILE_COUNT * TILE_SIZE
+            * TILE_SIZE];
+    private final byte[] flippedTilePixels = new byte[TILE_COUNT * TILE_SIZE
+            * TILE_SIZE];
+
+    // *Sprites par ligne*
+    private final int[][] spritesByLine = new int[LCD_HEIGHT][
+            MAX_SPRITES_IN_LINE];
+    private final int[] spritesInLine = new int[LCD_HEIGHT];
+    private boolean spritesByLineValid = false;
+
     /**
      * Represente les registres utilises dans le LcdControleur
      */
@@ -103,6 +152,11 @@ public final class LcdController implements Clocked, Component {
     }
 
     /**
+     * Retourne la dernière image complète. Avec le rendu direct, l'image
+     * reprend sans copie le tampon dans lequel elle a été dessinée, et le
+     * contrôleur en prend un nouveau pour l'image suivante : l'image retournée
+     * ne change donc jamais. Le même objet est retourné tant qu'aucune
+     * nouvelle image n'a été dessinée.
      * 
      * @return L'Image actuelle du controlleur
      */
@@ -115,11 +169,10 @@ public final class LcdController implements Clocked, Component {
             for (int i = 0; i < LCD_HEIGHT; i++)
                 list.add(NULL_LINE);
 
-            return new LcdImage(LCD_WIDTH, LCD_HEIGHT, list);
-
-        } else
+            currentImage = new LcdImage(LCD_WIDTH, LCD_HEIGHT, list);
+        }
 
-            return currentImage;
+        return currentImage;
     }
 
     /**
@@ -130,12 +183,23 @@ public final class LcdController implements Clocked, Component {
     @Override
     public int read(int address) {
 
-        Preconditions.checkBits16(address);
+        return readUnchecked(Preconditions.checkBits16(address));
+    }
+
+    /**
+     * (non-Javadoc)
+     * 
+     * @see ch.epfl.gameboj.component.Component#readUnchecked(int address)
+     */
+    @Override
+    public int readUnchecked(int address) {
+
+        sync();
 
         if (address >= AddressMap.VIDEO_RAM_START
                 && address < AddressMap.VIDEO_RAM_END)
 
-            return videoRam.read(address - AddressMap.VIDEO_RAM_START);
+            return videoRam.readUnchecked(address - AddressMap.VIDEO_RAM_START);
 
         else if (address >= AddressMap.REGS_LCDC_START
                 && address < AddressMap.REGS_LCDC_END) {
@@ -147,7 +211,9 @@ public final class LcdController implements Clocked, Component {
         }
 
         else if (address >= AddressMap.OAM_START & address < AddressMap.OAM_END)
-            return spriteRam.read(address - AddressMap.OAM_START);
+            return dmaEndCycle == Long.MAX_VALUE
+                    ? spriteRam.readUnchecked(address - AddressMap.OAM_START)
+                    : OAM_BLOCKED;
 
         return NO_DATA;
     }
@@ -160,20 +226,45 @@ public final class LcdController implements Clocked, Component {
     @Override
     public void write(int address, int data) {
 
-        Preconditions.checkBits16(address);
-        Preconditions.checkBits8(data);
+        writeUnchecked(Preconditions.checkBits16(address),
+                Preconditions.checkBits8(data));
+    }
+
+    /**
+     * (non-Javadoc)
+     * 
+     * @see ch.epfl.gameboj.component.Component#writeUnchecked(int address,
+     *      int data)
+     */
+    @Override
+    public void writeUnchecked(int address, int data) {
+
+        sync();
 
         if (address >= AddressMap.VIDEO_RAM_START
-                && address < AddressMap.VIDEO_RAM_END)
-            videoRam.write(address - AddressMap.VIDEO_RAM_START, data);
+                && address < AddressMap.VIDEO_RAM_END) {
+            videoRam.writeUnchecked(address - AddressMap.VIDEO_RAM_START, data);
+            if (address < TILE_DATA_END)
+                decodeTileRow(address - AddressMap.VIDEO_RAM_START);
+        }
 
         else if (address >= AddressMap.REGS_LCDC_START
-                && address < AddressMap.REGS_LCDC_END)
+                && address < AddressMap.REGS_LCDC_END) {
 
+            if (address == ADDRESS_LCDC || address == ADDRESS_STAT
+                    || address == ADDRESS_LYC)
+                nextInterruptCycleValid = false;
             switch (address) {
 
             case ADDRESS_LCDC:
+                if (Bits.test(regs.get(Regs.LCDC) ^ data, 2))
+                    spritesByLineValid = false;
                 regWrite(ADDRESS_LCDC, data);
+                // L'ecran allume commence sa premiere image au cycle suivant
+                if (nextNonIdleCycle == Long.MAX_VALUE && Bits.test(data, 7)) {
+                    lcdOnCycle = cpu.currentCycle() + 1;
+                    nextNonIdleCycle = 0;
+                }
                 break;
 
             case ADDRESS_STAT:
@@ -191,33 +282,33 @@ public final class LcdController implements Clocked, Component {
                 regWrite(address, data);
                 break;
             }
+        }
 
-        else if (address >= AddressMap.OAM_START & address < AddressMap.OAM_END)
-            spriteRam.write(address - AddressMap.OAM_START, data);
+        else if (address >= AddressMap.OAM_START
+                & address < AddressMap.OAM_END
+                && dmaEndCycle == Long.MAX_VALUE) {
+            spriteRam.writeUnchecked(address - AddressMap.OAM_START, data);
+            spritesByLineValid = false;
+        }
     }
 
     /**
      * Change le mode du Controlleur
      * 
      * @param mode
-     * @throws IllegalArgumentException
-     *             si le mode passé en argument nest pas compris entre 0 et 3
+     *            le nouveau mode, compris entre 0 et 3
      */
     private void changeMode(int mode) {
 
-        Preconditions.checkArgument(mode >= 0 && mode <= 3);
+        regs.setUnchecked(Regs.STAT, (regs.get(Regs.STAT) & ~0b11) | mode);
         switch (mode) {
 
         case 0:
-            regs.set(Regs.STAT, Bits.set(regs.get(Regs.STAT), 0, false));
-            regs.set(Regs.STAT, Bits.set(regs.get(Regs.STAT), 1, false));
             if (Bits.test(regs.get(Regs.STAT), 3))
                 cpu.requestInterrupt(Interrupt.LCD_STAT);
             break;
 
         case 1:
-            regs.set(Regs.STAT, Bits.set(regs.get(Regs.STAT), 0, true));
-            regs.set(Regs.STAT, Bits.set(regs.get(Regs.STAT), 1, false));
             cpu.requestInterrupt(Interrupt.VBLANK);
 
             if (Bits.test(regs.get(Regs.STAT), 4))
@@ -226,17 +317,9 @@ public final class LcdController implements Clocked, Component {
             break;
 
         case 2:
-            regs.set(Regs.STAT, Bits.set(regs.get(Regs.STAT), 0, false));
-            regs.set(Regs.STAT, Bits.set(regs.get(Regs.STAT), 1, true));
-
             if (Bits.test(regs.get(Regs.STAT), 5))
                 cpu.requestInterrupt(Interrupt.LCD_STAT);
             break;
-
-        case 3:
-            regs.set(Regs.STAT, Bits.set(regs.get(Regs.STAT), 0, true));
-            regs.set(Regs.STAT, Bits.set(regs.get(Regs.STAT), 1, true));
-            break;
         }
     }
 
@@ -248,28 +331,131 @@ public final class LcdController implements Clocked, Component {
     @Override
     public void cycle(long cycle) {
 
-        if (nextNonIdleCycle == Long.MAX_VALUE
-                && Bits.test(read(ADDRESS_LCDC), 7)) {
-            lcdOnCycle = cycle;
-            nextNonIdleCycle = 0;
+        catchUp(cycle);
+
+        if (cycle >= dmaEndCycle) {
+            dmaEndCycle = Long.MAX_VALUE;
+            bus.copy(regs.get(Regs.DMA) << 8, spriteRam, 0,
+                    AddressMap.OAM_RAM_SIZE);
+            spritesByLineValid = false;
         }
+    }
 
-        if (cycle - lcdOnCycle == nextNonIdleCycle)
-            reallyCycle(cycle);
+    /**
+     * Retourne le prochain cycle ou le controlleur doit etre appele : le
+     * prochain changement de mode ou de ligne qui leve une interruption, ou
+     * la fin de la copie DMA en cours si elle vient avant. Les autres
+     * changements de mode, et le dessin des lignes, sont rattrapes a la
+     * demande, lorsque le processeur accede a la memoire ou aux registres du
+     * controlleur. Retourne Long.MAX_VALUE si l'ecran est eteint et qu'aucune
+     * copie n'est en cours.
+     * 
+     * @see ch.epfl.gameboj.component.Clocked#nextEventCycle(long)
+     */
+    @Override
+    public long nextEventCycle(long cycle) {
 
-        if (dmaChanged && cyclesSinceCopy < 160) {
-            write(cyclesSinceCopy + AddressMap.OAM_START,
-                    bus.read(((regs.get(Regs.DMA)) << 8) + cyclesSinceCopy));
+        if (!nextInterruptCycleValid) {
+            nextInterruptCycle = computeNextInterruptCycle();
+            nextInterruptCycleValid = true;
+        }
 
-            cyclesSinceCopy++;
+        return Math.max(cycle, Math.min(dmaEndCycle, nextInterruptCycle));
+    }
 
-            if (cyclesSinceCopy == 160) {
-                dmaChanged = false;
-                cyclesSinceCopy = 0;
-            }
+    /**
+     * Fait evoluer le controlleur jusqu'au cycle donne (inclus), en executant
+     * dans l'ordre tous les changements de mode et de ligne en attente, et en
+     * dessinant les lignes correspondantes avec la valeur actuelle des
+     * registres. Le processeur ne pouvant modifier ces derniers qu'au travers
+     * de read et write, qui rattrapent d'abord le retard, les effets en
+     * milieu d'image (changement de SCX, SCY, etc.) restent exacts.
+     * 
+     * @param cycle
+     *            le cycle jusqu'auquel le controlleur doit evoluer
+     */
+    private void catchUp(long cycle) {
+
+        while (nextNonIdleCycle != Long.MAX_VALUE
+                && lcdOnCycle + nextNonIdleCycle <= cycle) {
+
+            long eventCycle = lcdOnCycle + nextNonIdleCycle;
+            if (eventCycle >= nextInterruptCycle)
+                nextInterruptCycleValid = false;
+            reallyCycle(eventCycle);
         }
     }
 
+    /**
+     * Met le controlleur a jour jusqu'au cycle durant lequel le processeur
+     * accede a sa memoire ou a ses registres
+     */
+    private void sync() {
+
+        catchUp(cpu.currentCycle());
+    }
+
+    /**
+     * Retourne le cycle du prochain changement de mode ou de ligne qui levera
+     * une interruption, compte tenu de la valeur actuelle de STAT et LYC : le
+     * debut du mode 0, 1 ou 2 si l'interruption correspondante est activee,
+     * le debut d'une ligne egale a LYC si son interruption l'est, et dans
+     * tous les cas le debut de la periode VBLANK.
+     * 
+     * @return le cycle du prochain changement levant une interruption, ou
+     *         Long.MAX_VALUE si l'ecran est eteint
+     */
+    private long computeNextInterruptCycle() {
+
+        if (nextNonIdleCycle == Long.MAX_VALUE)
+            return Long.MAX_VALUE;
+
+        int stat = regs.get(Regs.STAT);
+        int frameCycle = (int) (nextNonIdleCycle % IMAGE_CYCLES);
+        int line = frameCycle / LINE_CYCLES;
+        int nextLine = line + 1 < LCD_HEIGHT ? line + 1 : 0;
+
+        long next = cycleAtFrameCycle(frameCycle, LCD_HEIGHT * LINE_CYCLES);
+
+        if (Bits.test(stat, 6))
+            next = Math.min(next, cycleAtFrameCycle(frameCycle,
+                    regs.get(Regs.LYC) * LINE_CYCLES));
+
+        if (Bits.test(stat, 5))
+            next = Math.min(next, cycleAtFrameCycle(frameCycle,
+                    (frameCycle % LINE_CYCLES == 0 && line < LCD_HEIGHT
+                            ? line
+                            : nextLine) * LINE_CYCLES));
+
+        if (Bits.test(stat, 3))
+            next = Math.min(next, cycleAtFrameCycle(frameCycle,
+                    (frameCycle % LINE_CYCLES <= 63 && line < LCD_HEIGHT
+                            ? line
+                            : nextLine) * LINE_CYCLES + 63));
+
+        return next;
+    }
+
+    /**
+     * Retourne le premier cycle, a partir du prochain changement de mode,
+     * durant lequel l'image en cours atteint la position donnee
+     * 
+     * @param frameCycle
+     *            la position du prochain changement de mode dans l'image
+     * @param target
+     *            la position cherchee dans l'image, en cycles (une position
+     *            au-dela de l'image n'est jamais atteinte)
+     * @return le cycle correspondant
+     */
+    private long cycleAtFrameCycle(int frameCycle, int target) {
+
+        if (target >= IMAGE_CYCLES)
+            return Long.MAX_VALUE;
+
+        return lcdOnCycle + nextNonIdleCycle
+                + Math.floorMod(target - frameCycle, IMAGE_CYCLES);
+    }
+
     /**
      * Fait ce qu'il ya a faire a un cycle donne
      * 
@@ -290,12 +476,29 @@ public final class LcdController implements Clocked, Component {
         if (atLine < 144) {
             if (frameCycle == 0) {
                 winY = 0;
-                nextImageBuilder = new LcdImage.Builder(LCD_WIDTH, LCD_HEIGHT);
+                renderingFrame = rendering && skippedFrames >= frameSkip;
+                if (renderingFrame)
+                    skippedFrames = 0;
+                else if (skippedFrames < Integer.MAX_VALUE)
+                    ++skippedFrames;
+                imageLineRenderer = requestedImageLineRenderer;
+                if (!renderingFrame)
+                    nextImageBuilder = null;
+                else if (imageLineRenderer)
+                    nextImageBuilder = new LcdImage.Builder(LCD_WIDTH,
+                            LCD_HEIGHT);
+                else
+                    frameBuffer = new byte[LCD_WIDTH * LCD_HEIGHT];
             }
             switch (cyclesSinceLine) {
 
             case 20:
-                nextImageBuilder.setLine(atLine, computeLine(atLine));
+                if (renderingFrame) {
+                    if (imageLineRenderer)
+                        nextImageBuilder.setLine(atLine, computeLine(atLine));
+                    else
+                        renderLine(atLine, frameBuffer);
+                }
                 nextNonIdleCycle += 43;
                 changeMode(3);
                 break;
@@ -314,7 +517,16 @@ public final class LcdController implements Clocked, Component {
 
         } else {
             if (atLine == 144) {
-                currentImage = nextImageBuilder.build();
+                // Une image sautée laisse la précédente comme image courante
+                if (renderingFrame) {
+                    if (imageLineRenderer) {
+                        currentImage = nextImageBuilder.build();
+                    } else {
+                        currentImage = new LcdImage(LCD_WIDTH, LCD_HEIGHT,
+                                frameBuffer);
+                        frameBuffer = null;
+                    }
+                }
                 changeMode(1);
             }
             nextNonIdleCycle += LINE_CYCLES;
@@ -323,6 +535,246 @@ public final class LcdController implements Clocked, Component {
 
     }
 
+    /**
+     * Choisit le moteur de rendu : par défaut les lignes sont dessinées
+     * directement dans un tampon d'image réutilisé, l'ancien moteur qui
+     * compose des LcdImageLine restant disponible pour comparaison. Le
+     * changement prend effet au début de l'image suivante.
+     * 
+     * @param enabled
+     *            vrai pour utiliser le moteur à base de LcdImageLine
+     */
+    public void useImageLineRenderer(boolean enabled) {
+
+        requestedImageLineRenderer = enabled;
+    }
+
+    /**
+     * Active ou désactive entièrement la composition des images : une fois
+     * désactivée, les images ne sont plus dessinées mais les registres, les
+     * modes et les interruptions évoluent comme si elles l'étaient, et
+     * l'image courante reste la dernière image dessinée. Le changement prend
+     * effet au début de l'image suivante.
+     * 
+     * @param enabled
+     *            vrai pour dessiner les images
+     */
+    public void setRendering(boolean enabled) {
+
+        rendering = enabled;
+    }
+
+    /**
+     * Fixe le nombre d'images à sauter après chaque image dessinée : avec un
+     * saut de n, seule une image sur n + 1 est composée, les autres ne
+     * laissant évoluer que les registres, les modes et les interruptions,
+     * exactement comme si elles étaient dessinées. L'image courante reste
+     * alors la dernière image dessinée. Le changement prend effet au début
+     * de l'image suivante.
+     * 
+     * @param skip
+     *            le nombre d'images à sauter après chaque image dessinée
+     * @throws IllegalArgumentException
+     *             si le nombre est négatif
+     */
+    public void setFrameSkip(int skip) {
+
+        Preconditions.checkArgument(skip >= 0);
+        frameSkip = skip;
+    }
+
+    /**
+     * Dessine la ligne d'index donné dans le tampon d'image donné, un octet
+     * (la couleur, de 0 à 3) par pixel, sans allouer d'objets. Le résultat est
+     * identique à celui de computeLine.
+     * 
+     * @param lineIndex
+     *            l'index de la ligne
+     * @param frame
+     *            le tampon d'image, de LCD_WIDTH * LCD_HEIGHT octets
+     */
+    private void renderLine(int lineIndex, byte[] frame) {
+
+        int lcdc = regs.get(Regs.LCDC);
+        int bgp = regs.get(Regs.BGP);
+        int[] behind = spritesBehind;
+        int[] front = spritesInFront;
+
+        Arrays.fill(behind, -1);
+        Arrays.fill(front, -1);
+        if (Bits.test(lcdc, 1)) {
+            if (!spritesByLineValid)
+                sortSpritesByLine();
+            int[] sprites = spritesByLine[lineIndex];
+            for (int i = 0; i < spritesInLine[lineIndex]; ++i)
+                renderSprite(Bits.clip(8, sprites[i]));
+        }
+
+        boolean background = Bits.test(lcdc, 0);
+        if (background) {
+            int line = (lineIndex + regs.get(Regs.SCY)) % BACKGROUND_WIDTH;
+            decodeRow(Bits.test(lcdc, 3) ? 1 : 0, line, backgroundRow);
+        }
+
+        int wxTranslated = Math.max(regs.get(Regs.WX) - WX_X_OFFSET, 0);
+        boolean window = lineIndex >= regs.get(Regs.WY)
+                && Bits.test(lcdc, 5) && wxTranslated < LCD_WIDTH;
+        if (window)
+            decodeRow(Bits.test(lcdc, 6) ? 1 : 0, winY++, windowRow);
+
+        int scx = regs.get(Regs.SCX);
+        int winShift = regs.get(Regs.WX) - WX_X_OFFSET;
+        int offset = lineIndex * LCD_WIDTH;
+
+        for (int x = 0; x < LCD_WIDTH; ++x) {
+
+            int color = behind[x] < 0 ? 0 : behind[x];
+
+            if (background) {
+                int raw = backgroundRow[(x + scx) % BACKGROUND_WIDTH];
+                if (raw != 0 || behind[x] < 0)
+                    color = (bgp >> (raw << 1)) & 0b11;
+            }
+
+            if (window && x >= wxTranslated) {
+                int winX = x - winShift;
+                int raw = winX < BACKGROUND_WIDTH ? windowRow[winX] : 0;
+                color = (bgp >> (raw << 1)) & 0b11;
+            }
+
+            if (front[x] >= 0)
+                color = front[x];
+
+            frame[offset + x] = (byte) color;
+        }
+    }
+
+    /**
+     * Décode une ligne de 256 pixels (couleurs brutes, avant palette) du fond
+     * ou de la fenêtre, en copiant les lignes des tuiles déjà décodées
+     * 
+     * @param displayData
+     *            l'index de la zone de tuiles à afficher (0 ou 1)
+     * @param line
+     *            l'index de la ligne dans l'image de 256 x 256 pixels
+     * @param row
+     *            le tableau dans lequel écrire les 256 pixels
+     */
+    private void decodeRow(int displayData, int line, byte[] row) {
+
+        boolean tileSource = Bits.test(regs.get(Regs.LCDC), 4);
+        int tileLine = line >>> 3;
+        int lineInTile = line % TILE_SIZE;
+        int mapStart = AddressMap.BG_DISPLAY_DATA[displayData]
+                + (tileLine << 5) - AddressMap.VIDEO_RAM_START;
+
+        for (int a = 0; a < TILES_IN_LINE; ++a) {
+
+            int tileIndex = videoRam.read(mapStart + a);
+            if (!tileSource && tileIndex < TILE_ADDRESS_OVERFLOW)
+                tileIndex += 2 * TILE_ADDRESS_OVERFLOW;
+
+            System.arraycopy(tilePixels,
+                    (((tileIndex << 3) + lineInTile) << 3), row, a << 3,
+                    TILE_SIZE);
+        }
+    }
+
+    /**
+     * Met à jour le cache des tuiles pour la ligne de tuile contenant l'octet
+     * de la mémoire vidéo d'index donné, dans ses versions normale et
+     * retournée horizontalement
+     * 
+     * @param offset
+     *            l'index de l'octet modifié dans la zone des tuiles
+     */
+    private void decodeTileRow(int offset) {
+
+        int rowStart = offset & ~1;
+        int lsb = videoRam.read(rowStart);
+        int msb = videoRam.read(rowStart + 1);
+        int pixelsStart = (offset >>> 1) << 3;
+
+        for (int j = 0; j < TILE_SIZE; ++j) {
+            int bit = 7 - j;
+            byte color = (byte) ((((msb >> bit) & 1) << 1)
+                    | ((lsb >> bit) & 1));
+            tilePixels[pixelsStart + j] = color;
+            flippedTilePixels[pixelsStart + bit] = color;
+        }
+    }
+
+    /**
+     * Reconstruit, pour chaque ligne de l'écran, la liste des sprites (au
+     * maximum 10) qui l'intersectent, ordonnée selon leur position en X comme
+     * celle de spritesIntersectingLine. Elle n'est recalculée qu'après une
+     * modification de la mémoire des sprites (écriture ou copie DMA) ou de la
+     * hauteur des sprites.
+     */
+    private void sortSpritesByLine() {
+
+        Arrays.fill(spritesInLine, 0);
+        int height = getHeight();
+
+        for (int index = 0; index < MAX_SPRITES_IN_MEMORY; ++index) {
+
+            int y = spriteRam.read(index << 2) - SPRITES_Y_OFFSET;
+            int key = Bits.make16(spriteRam.read((index << 2) + 1), index);
+            int first = Math.max(y, 0);
+            int last = Math.min(y + height, LCD_HEIGHT);
+
+            for (int line = first; line < last; ++line)
+                if (spritesInLine[line] < MAX_SPRITES_IN_LINE)
+                    spritesByLine[line][spritesInLine[line]++] = key;
+        }
+
+        for (int line = 0; line < LCD_HEIGHT; ++line)
+            Arrays.sort(spritesByLine[line], 0, spritesInLine[line]);
+
+        spritesByLineValid = true;
+    }
+
+    /**
+     * Dessine le sprite d'index donné dans la ligne des sprites de devant ou
+     * de derrière le fond selon sa priorité, sans recouvrir les pixels
+     * opaques des sprites dessinés avant lui
+     * 
+     * @param spriteIndex
+     *            l'index du sprite dans la mémoire des sprites
+     */
+    private void renderSprite(int spriteIndex) {
+
+        int base = spriteIndex << 2;
+        int y = spriteRam.read(base);
+        int x = spriteRam.read(base + 1) - SPRITES_X_OFFSET;
+        int tileAddress = spriteRam.read(base + 2);
+        int attributes = spriteRam.read(base + 3);
+
+        int height = getHeight();
+        int lineInTile = (regs.get(Regs.LY) - y) & (height - 1);
+        if (Bits.test(attributes, 6))
+            lineInTile = height - 1 - lineInTile;
+
+        byte[] pixels = Bits.test(attributes, 5) ? flippedTilePixels
+                : tilePixels;
+        int pixelsStart = ((tileAddress << 3) + lineInTile) << 3;
+        int palette = regs
+                .get(Bits.test(attributes, 4) ? Regs.OBP1 : Regs.OBP0);
+        int[] target = Bits.test(attributes, 7) ? spritesBehind
+                : spritesInFront;
+
+        for (int j = 0; j < TILE_SIZE; ++j) {
+
+            int px = x + j;
+            if (px < 0 || px >= LCD_WIDTH || target[px] >= 0)
+                continue;
+
+            int raw = pixels[pixelsStart + j];
+            if (raw != 0)
+                target[px] = (palette >> (raw << 1)) & 0b11;
+        }
+    }
+
     /**
      * Calcul la ligne a etre aficher au moment de l'appel de la fonction a
      * lindex passé en argument
@@ -335,56 +787,27 @@ public final class LcdController implements Clocked, Component {
     private LcdImageLine computeLine(int lineIndex) {
         Objects.checkIndex(lineIndex, LCD_HEIGHT);
 
-        LcdImageLine.Builder lineBuild = new LcdImageLine.Builder(
-                BACKGROUND_WIDTH);
         int line = (lineIndex + regs.get(Regs.SCY)) % BACKGROUND_WIDTH;
-        int tileLine = (int) line >>> 3;
-        int lineInTile = (int) line % (TILE_SIZE);
-        LcdImageLine spriteBelow = NULL_LINE;
-        LcdImageLine spriteFront = NULL_LINE;
-        LcdImageLine screenLine = NULL_LINE;
-        LcdImageLine winLine = NULL_LINE;
-        LcdImageLine lineReturned = NULL_LINE;
+        MutableLcdImageLine lineReturned = workLine.clear();
 
         if (Bits.test(regs.get(Regs.LCDC), 1)) {
-            spriteBelow = spriteLine(spritesIntersectingLine(), false);
-            spriteFront = (spriteLine(spritesIntersectingLine(), true));
+            int[] sprites = spritesIntersectingLine();
+            spriteLine(sprites, false, workSpritesBelow);
+            spriteLine(sprites, true, workSpritesInFront);
+        } else {
+            workSpritesBelow.clear();
+            workSpritesInFront.clear();
         }
 
-        lineReturned = lineReturned.below(spriteBelow);
+        lineReturned.below(workSpritesBelow);
 
         if (Bits.test(regs.get(Regs.LCDC), 0)) {
-            for (int a = 0; a < TILES_IN_LINE; ++a) {
-
-                int lsb, msb, tileAddress = 0;
-                int TILE_SOURCE = Bits.test(regs.get(Regs.LCDC), 4) ? 1 : 0;
-                int BG_DISPLAY_DATA = Bits.test(regs.get(Regs.LCDC), 3) ? 1 : 0;
-
-                tileAddress = this
-                        .read(AddressMap.BG_DISPLAY_DATA[BG_DISPLAY_DATA]
-                                + (tileLine << 5) + a);
-
-                if (!Bits.test(regs.get(Regs.LCDC), 4))
-                    tileAddress = (tileAddress < TILE_ADDRESS_OVERFLOW)
-                            ? tileAddress + TILE_ADDRESS_OVERFLOW
-                            : tileAddress - TILE_ADDRESS_OVERFLOW;
-
-                lsb = this.read(AddressMap.TILE_SOURCE[TILE_SOURCE]
-                        + (tileAddress << 4) + (lineInTile << 1));
-
-                msb = this.read(AddressMap.TILE_SOURCE[TILE_SOURCE]
-                        + (tileAddress << 4) + (lineInTile << 1) + 1);
-
-                lineBuild.setBytes(a, Bits.reverse8(msb), Bits.reverse8(lsb));
-
-            }
-
-            screenLine = lineBuild.build();
-            screenLine = screenLine.extract(regs.get(Regs.SCX), LCD_WIDTH);
-            screenLine = screenLine.mapColors(regs.get(Regs.BGP));
-            BitVector or = spriteBelow.opacity().not();
-            lineReturned = lineReturned.below(screenLine,
-                    (screenLine.opacity().or(or)));
+            fillBackgroundLine(Bits.test(regs.get(Regs.LCDC), 3) ? 1 : 0, line);
+            workLayer.extract(workBackground, regs.get(Regs.SCX))
+                    .mapColors(regs.get(Regs.BGP));
+            workOpacity.set(workSpritesBelow.opacity()).not()
+                    .or(workLayer.opacity());
+            lineReturned.below(workLayer, workOpacity);
         }
 
         int wxTranslated = regs.get(Regs.WX) - WX_X_OFFSET;
@@ -393,57 +816,77 @@ public final class LcdController implements Clocked, Component {
         if (lineIndex >= regs.get(Regs.WY) && Bits.test(regs.get(Regs.LCDC), 5)
                 && wxTranslated < 160) {
 
-            winLine = computeWin();
-            lineReturned = lineReturned.join(winLine, wxTranslated);
+            computeWin();
+            lineReturned.join(workLayer, wxTranslated);
         }
 
-        lineReturned = lineReturned.below(spriteFront);
-        return lineReturned;
+        lineReturned.below(workSpritesInFront);
+        return lineReturned.toLcdImageLine();
     }
 
     /**
      * Calcul la ligne de la fenetre a etre afficher au moment de lappel de la
-     * fonction
-     * 
-     * @return la ligne de la fenetre a etre afficher
+     * fonction, dans la ligne de travail workLayer
      */
-    private LcdImageLine computeWin() {
+    private void computeWin() {
 
         int wxTranslated = regs.get(Regs.WX) - WX_X_OFFSET;
-        int tileLineWin = (int) winY >>> 3;
-        int lineInTileWin = (int) winY % (TILE_SIZE);
-        LcdImageLine.Builder winLineBuilder = new LcdImageLine.Builder(256);
-        LcdImageLine winLine;
+
+        fillBackgroundLine(Bits.test(regs.get(Regs.LCDC), 6) ? 1 : 0, winY);
+        ++winY;
+        workBackground.shift(wxTranslated);
+        workLayer.extract(workBackground, 0).mapColors(regs.get(Regs.BGP));
+    }
+
+    /**
+     * Remplit la ligne de travail workBackground avec la ligne donnée de
+     * l'image de 256 x 256 pixels du fond ou de la fenetre
+     * 
+     * @param displayData
+     *            l'index de la zone de tuiles à afficher (0 ou 1)
+     * @param line
+     *            l'index de la ligne dans l'image
+     */
+    private void fillBackgroundLine(int displayData, int line) {
+
+        int tileLine = (int) line >>> 3;
+        int lineInTile = (int) line % (TILE_SIZE);
+        int tileSource = Bits.test(regs.get(Regs.LCDC), 4) ? 1 : 0;
 
         for (int a = 0; a < TILES_IN_LINE; ++a) {
 
             int lsb, msb, tileAddress = 0;
-            int TILE_SOURCE = Bits.test(regs.get(Regs.LCDC), 4) ? 1 : 0;
-            int BG_DISPLAY_DATA = Bits.test(regs.get(Regs.LCDC), 6) ? 1 : 0;
 
-            tileAddress = this.read(AddressMap.BG_DISPLAY_DATA[BG_DISPLAY_DATA]
-                    + (tileLineWin << 5) + a);
+            tileAddress = videoRamAt(AddressMap.BG_DISPLAY_DATA[displayData]
+                    + (tileLine << 5) + a);
 
-            if (!Bits.test(regs.get(Regs.LCDC), 4))
+            if (tileSource == 0)
                 tileAddress = (tileAddress < TILE_ADDRESS_OVERFLOW)
                         ? tileAddress + TILE_ADDRESS_OVERFLOW
                         : tileAddress - TILE_ADDRESS_OVERFLOW;
 
-            lsb = this.read(AddressMap.TILE_SOURCE[TILE_SOURCE]
-                    + (tileAddress << 4) + (lineInTileWin << 1));
+            lsb = videoRamAt(AddressMap.TILE_SOURCE[tileSource]
+                    + (tileAddress << 4) + (lineInTile << 1));
 
-            msb = this.read(AddressMap.TILE_SOURCE[TILE_SOURCE]
-                    + (tileAddress << 4) + (lineInTileWin << 1) + 1);
+            msb = videoRamAt(AddressMap.TILE_SOURCE[tileSource]
+                    + (tileAddress << 4) + (lineInTile << 1) + 1);
 
-            winLineBuilder.setBytes(a, Bits.reverse8(msb), Bits.reverse8(lsb));
+            workBackground.setBytes(a, Bits.reverse8(msb), Bits.reverse8(lsb));
         }
+    }
 
-        ++winY;
-        winLine = winLineBuilder.build();
-        winLine = winLine.shift(wxTranslated);
-        winLine = winLine.extract(0, LCD_WIDTH);
-        winLine = winLine.mapColors(regs.get(Regs.BGP));
-        return winLine;
+    /**
+     * lit directement dans la mémoire vidéo l'octet à l'adresse donnée, sans
+     * passer par read : le dessin d'une ligne a lieu pendant le rattrapage,
+     * qu'une lecture synchronisée relancerait
+     * 
+     * @param address
+     *            l'adresse de l'octet, dans la mémoire vidéo
+     * @return l'octet à cette adresse
+     */
+    private int videoRamAt(int address) {
+
+        return videoRam.readUnchecked(address - AddressMap.VIDEO_RAM_START);
     }
 
     /**
@@ -461,15 +904,13 @@ public final class LcdController implements Clocked, Component {
         while (spritesFound < MAX_SPRITES_IN_LINE
                 & index < MAX_SPRITES_IN_MEMORY) {
 
-            if (bus.read(AddressMap.OAM_START + (index << 2))
+            if (spriteRam.read(index << 2)
                     - SPRITES_Y_OFFSET <= regs.get(Regs.LY)
-                    && bus.read(AddressMap.OAM_START + (index << 2))
-                            + getHeight()
+                    && spriteRam.read(index << 2) + getHeight()
                             - SPRITES_Y_OFFSET > regs.get(Regs.LY)) {
 
-                indexes[spritesFound] = Bits.make16(
-                        bus.read(AddressMap.OAM_START + (index << 2) + 1),
-                        index);
+                indexes[spritesFound] = Bits
+                        .make16(spriteRam.read((index << 2) + 1), index);
                 spritesFound++;
             }
             index++;
@@ -497,41 +938,54 @@ public final class LcdController implements Clocked, Component {
      */
     public LcdImageLine spriteLine(int[] spriteIndex, boolean isInFront) {
 
-        List<LcdImageLine> spriteLines = new ArrayList<>();
-        LcdImageLine line = NULL_LINE;
+        MutableLcdImageLine line = new MutableLcdImageLine(LCD_WIDTH);
+        spriteLine(spriteIndex, isInFront, line);
+        return line.toLcdImageLine();
+    }
 
-        for (int i = 0; i < spriteIndex.length; i++) {
+    /**
+     * Calcul la ligne contenant les sprites dans la ligne modifiable donnée,
+     * les sprites d'index le plus petit se trouvant au-dessus des autres
+     * 
+     * @param spriteIndex
+     *            tableau qui contient les index des sprites presant a ligne
+     *            actuelle
+     * @param isInFront
+     *            est a true si on veut les sprites qui sont devant le plan et
+     *            est a faux si lon veut les sprites du background
+     * @param line
+     *            la ligne dans laquelle dessiner les sprites
+     */
+    private void spriteLine(int[] spriteIndex, boolean isInFront,
+            MutableLcdImageLine line) {
+
+        line.clear();
+
+        for (int i = spriteIndex.length - 1; i >= 0; --i) {
 
             int lsb, msb = 0;
-            LcdImageLine.Builder spriteBuilder = new LcdImageLine.Builder(
-                    LCD_WIDTH);
-            LcdImageLine spriteLine;
             int spriteIndexx = spriteIndex[i];
-            int spriteXPosition = bus
-                    .read(AddressMap.OAM_START + (spriteIndexx << 2) + 1)
+            int attributes = spriteRam.read((spriteIndexx << 2) + 3);
+
+            if (isInFront == Bits.test(attributes, 7))
+                continue;
+
+            int spriteXPosition = spriteRam.read((spriteIndexx << 2) + 1)
                     - SPRITES_X_OFFSET;
-            boolean spritePalette = Bits.test(
-                    bus.read(AddressMap.OAM_START + (spriteIndexx << 2) + 3),
-                    4);
-            boolean hFlip = Bits.test(
-                    bus.read(AddressMap.OAM_START + (spriteIndexx << 2) + 3),
-                    5);
-            boolean vFlip = Bits.test(
-                    bus.read(AddressMap.OAM_START + (spriteIndexx << 2) + 3),
-                    6);
+            boolean spritePalette = Bits.test(attributes, 4);
+            boolean hFlip = Bits.test(attributes, 5);
+            boolean vFlip = Bits.test(attributes, 6);
             int lineInTile = (regs.get(Regs.LY)
-                    - (bus.read(AddressMap.OAM_START + (spriteIndexx << 2))))
-                    & (getHeight() - 1);
-            int tileAddress = bus
-                    .read(AddressMap.OAM_START + (spriteIndexx << 2) + 2);
+                    - spriteRam.read(spriteIndexx << 2)) & (getHeight() - 1);
+            int tileAddress = spriteRam.read((spriteIndexx << 2) + 2);
 
             if (vFlip)
                 lineInTile = getHeight() - 1 - lineInTile;
 
-            lsb = this.read(AddressMap.TILE_SOURCE[1] + (tileAddress << 4)
+            lsb = videoRamAt(AddressMap.TILE_SOURCE[1] + (tileAddress << 4)
                     + (lineInTile << 1));
 
-            msb = this.read(AddressMap.TILE_SOURCE[1] + (tileAddress << 4)
+            msb = videoRamAt(AddressMap.TILE_SOURCE[1] + (tileAddress << 4)
                     + (lineInTile << 1) + 1);
 
             if (hFlip) {
@@ -540,38 +994,12 @@ public final class LcdController implements Clocked, Component {
                 lsb = Bits.reverse8(lsb);
             }
 
-            spriteLine = spriteBuilder
+            workSprite.clear()
                     .setBytes(0, Bits.reverse8(msb), Bits.reverse8(lsb))
-                    .build();
-
-            if (spritePalette)
-                spriteLine = spriteLine.mapColors(regs.get(Regs.OBP1));
-
-            else
-                spriteLine = spriteLine.mapColors(regs.get(Regs.OBP0));
-
-            if ((isInFront && !Bits.test(
-                    bus.read(AddressMap.OAM_START + (spriteIndexx << 2) + 3),
-                    7))
-                    || (!isInFront & Bits.test(bus.read(
-                            AddressMap.OAM_START + (spriteIndexx << 2) + 3),
-                            7))) {
-
-                spriteLine = spriteLine.shift(spriteXPosition);
-                spriteLines.add(spriteLine);
-            }
+                    .mapColors(regs.get(spritePalette ? Regs.OBP1 : Regs.OBP0))
+                    .shift(spriteXPosition);
+            line.below(workSprite);
         }
-
-        LcdImageLine[] planDeSprite = new LcdImageLine[spriteLines.size()];
-
-        spriteLines.toArray(planDeSprite);
-
-        for (int i = planDeSprite.length - 1; i >= 0; --i)
-
-            line = line.below(planDeSprite[i]);
-
-        return line;
-
     }
 
     /**
@@ -598,43 +1026,39 @@ public final class LcdController implements Clocked, Component {
      * Change LY et lance les interruption necessaires
      * 
      * @param data
-     * @throws IllegalArgumentException
-     *             si la valeur passé en argument n'est pas de 8 bits
+     *            la nouvelle valeur 8 bits de LY
      */
     private void changeLy(int data) {
 
-        Preconditions.checkBits8(data);
-        regs.set(Regs.LY, data);
+        regs.setUnchecked(Regs.LY, data);
 
         if (checkLyLyc()) {
-            regs.set(Regs.STAT, Bits.set(regs.get(Regs.STAT), 2, true));
+            regs.setUnchecked(Regs.STAT, regs.get(Regs.STAT) | 0b100);
 
             if (Bits.test(regs.get(Regs.STAT), 6))
                 cpu.requestInterrupt(Interrupt.LCD_STAT);
         }
 
         else
-            regs.set(Regs.STAT, Bits.set(regs.get(Regs.STAT), 2, false));
+            regs.setUnchecked(Regs.STAT, regs.get(Regs.STAT) & ~0b100);
     }
 
     /**
      * Change LYC et lance les interruptions necessaires
      * 
      * @param data
-     * @throws IllegalArgumentException
-     *             si la valeur passe en argument ne vaus pas 8 bits
+     *            la nouvelle valeur 8 bits de LYC
      */
     private void changeLyc(int data) {
 
-        Preconditions.checkBits8(data);
-        regs.set(Regs.LYC, data);
+        regs.setUnchecked(Regs.LYC, data);
         if (checkLyLyc()) {
-            regs.set(Regs.STAT, Bits.set(regs.get(Regs.STAT), 2, true));
+            regs.setUnchecked(Regs.STAT, regs.get(Regs.STAT) | 0b100);
 
             if (Bits.test(regs.get(Regs.STAT), 6))
                 cpu.requestInterrupt(Interrupt.LCD_STAT);
         } else
-            regs.set(Regs.STAT, Bits.set(regs.get(Regs.STAT), 2, false));
+            regs.setUnchecked(Regs.STAT, regs.get(Regs.STAT) & ~0b100);
     }
 
     /**
@@ -706,17 +1130,12 @@ public final class LcdController implements Clocked, Component {
      * @param address,
      *            ladres dans la quelle il faut ecrire
      * @param data,Ce
-     *            quil faut ecrire a ladresse
-     * @throws IllegalArgumentException
-     *             si la data passé en argument ne fait pas 8 bits ou si la data
-     *             ne fait pas 16 bits
+     *            quil faut ecrire a ladresse, deja verifie par write
      */
     private void regWrite(int address, int data) {
-        Preconditions.checkBits8(data);
-        Preconditions.checkBits16(data);
         switch (address) {
         case ADDRESS_LCDC:
-            regs.set(Regs.LCDC, data);
+            regs.setUnchecked(Regs.LCDC, data);
             if (Bits.test(regs.get(Regs.LCDC), 7) == false) {
                 changeMode(0);
                 changeLy(0);
@@ -726,7 +1145,7 @@ public final class LcdController implements Clocked, Component {
 
         case ADDRESS_STAT:
             data = (data & 0b11111000) | (regRead(ADDRESS_STAT) & 0b00000111); // !!!
-            regs.set(Regs.STAT, data);
+            regs.setUnchecked(Regs.STAT, data);
             if (!Bits.test(regs.get(Regs.STAT), 7))
                 changeMode(0);
             break;
@@ -740,42 +1159,71 @@ public final class LcdController implements Clocked, Component {
             break;
 
         case ADDRESS_SCY:
-            regs.set(Regs.SCY, data);
+            regs.setUnchecked(Regs.SCY, data);
             break;
 
         case ADDRESS_SCX:
-            regs.set(Regs.SCX, data);
+            regs.setUnchecked(Regs.SCX, data);
             break;
 
         case ADDRESS_DMA:
-            dmaChanged = true;
-            regs.set(Regs.DMA, data);
+            dmaEndCycle = cpu.currentCycle() + AddressMap.OAM_RAM_SIZE;
+            regs.setUnchecked(Regs.DMA, data);
             break;
 
         case ADDRESS_BGP:
-            regs.set(Regs.BGP, data);
+            regs.setUnchecked(Regs.BGP, data);
             break;
 
         case ADDRESS_OBP0:
-            regs.set(Regs.OBP0, data);
+            regs.setUnchecked(Regs.OBP0, data);
             break;
 
         case ADDRESS_OBP1:
-            regs.set(Regs.OBP1, data);
+            regs.setUnchecked(Regs.OBP1, data);
             break;
 
         case ADDRESS_WY:
-            regs.set(Regs.WY, data);
+            regs.setUnchecked(Regs.WY, data);
             break;
 
         case ADDRESS_WX:
-            regs.set(Regs.WX, data);
+            regs.setUnchecked(Regs.WX, data);
             break;
         }
     }
 
     /**
-     * (non-Javadoc)
+     * Retourne le prochain changement de mode pour STAT et le debut de la
+     * prochaine ligne pour LY, qui evoluent avec l'affichage, et
+     * Long.MAX_VALUE pour la memoire et les autres registres, qui ne changent
+     * que lorsqu'on y ecrit (la fin d'une copie DMA etant un evenement du
+     * controlleur)
+     * 
+     * @see ch.epfl.gameboj.component.Component#nextChangeCycle(int, long)
+     */
+    @Override
+    public long nextChangeCycle(int address, long cycle) {
+
+        if (address != ADDRESS_LY && address != ADDRESS_STAT)
+            return Long.MAX_VALUE;
+
+        catchUp(cycle);
+        if (nextNonIdleCycle == Long.MAX_VALUE)
+            return Long.MAX_VALUE;
+        if (address == ADDRESS_STAT)
+            return lcdOnCycle + nextNonIdleCycle;
+
+        int frameCycle = (int) (nextNonIdleCycle % IMAGE_CYCLES);
+        int line = frameCycle / LINE_CYCLES;
+        if (frameCycle % LINE_CYCLES != 0)
+            line = (line + 1) % (IMAGE_CYCLES / LINE_CYCLES);
+        return cycleAtFrameCycle(frameCycle, line * LINE_CYCLES);
+    }
+
+    /**
+     * Attache le controlleur au bus pour la memoire video, la memoire des
+     * sprites et ses registres
      * 
      * @see ch.epfl.gameboj.component.Component#attachTo(Bus bus)
      */
@@ -783,6 +1231,8 @@ public final class LcdController implements Clocked, Component {
     public void attachTo(Bus bus) {
 
         this.bus = bus;
-        bus.attach(this);
+        bus.attach(this, AddressMap.VIDEO_RAM_START, AddressMap.VIDEO_RAM_END);
+        bus.attach(this, AddressMap.OAM_START, AddressMap.OAM_END);
+        bus.attach(this, AddressMap.REGS_LCDC_START, AddressMap.REGS_LCDC_END);
     }
 }
@@ -1,6 +1,7 @@
 package ch.epfl.gameboj.component.lcd;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -11,18 +12,21 @@ import ch.epfl.gameboj.bits.BitVector;
  * 
  * @author Alvaro Cauderan ( 282186)
  * @author Gauthier Boeshertz (283192) Représente une image affichée à l'écran,
+ *         stockée sous la forme d'un tableau contenant la couleur (de 0 à 3)
+ *         de chaque pixel, ligne après ligne
  */
 
 public final class LcdImage {
     private final int width;
     private final int height;
-    private final List<LcdImageLine> lineList;
+    private final byte[] pixels;
     private final static int MAX_WIDTH = 256;
     private static final int MAX_HEIGHT = 256;
     private final int MIN_WIDTH = 0, MIN_HEIGHT = 0;
 
     /**
-     * Construit une image
+     * Construit une image à partir de ses lignes, dont les couleurs sont
+     * recopiées dans le tableau des pixels de l'image
      * 
      * @param width
      *            la larguer de l'image
@@ -42,7 +46,44 @@ public final class LcdImage {
                 && height > MIN_HEIGHT && height <= MAX_HEIGHT);
         this.width = width;
         this.height = height;
-        this.lineList = list;
+        this.pixels = new byte[width * height];
+
+        for (int y = 0; y < height; ++y) {
+            LcdImageLine line = list.get(y);
+            for (int x = 0; x < width; ++x) {
+                int a = line.msb().testBit(x) ? 0b010 : 0;
+                int b = line.lsb().testBit(x) ? 0b001 : 0;
+                pixels[y * width + x] = (byte) (a | b);
+            }
+        }
+    }
+
+    /**
+     * Construit une image à partir d'un tableau de couleurs, un octet (de 0 à
+     * 3) par pixel, ligne après ligne. Le tableau n'est pas copié : l'appelant
+     * le cède à l'image et ne doit plus le modifier, ce que seul le paquetage
+     * peut garantir.
+     * 
+     * @param width
+     *            la larguer de l'image
+     * @param height
+     *            la hauteur de l'image
+     * @param pixels
+     *            les couleurs des pixels de l'image
+     * @throws IllegalArgumentException
+     *             si la hauteur ou la largeur sont négatives ou supérieures à
+     *             256, ou si la taille du tableau ne correspond pas à celle de
+     *             l'image
+     */
+    LcdImage(int width, int height, byte[] pixels) {
+
+        Preconditions.checkArgument(width > MIN_WIDTH && width <= MAX_WIDTH
+                && height > MIN_HEIGHT && height <= MAX_HEIGHT);
+        Preconditions.checkArgument(
+                Objects.requireNonNull(pixels).length == width * height);
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
     }
 
     /**
@@ -82,30 +123,63 @@ public final class LcdImage {
         Objects.checkIndex(x, width);
         Objects.checkIndex(y, height);
 
-        LcdImageLine line = lineList.get(y);
+        return pixels[y * width + x];
+    }
 
-        int a = line.msb().testBit(x) ? 0b010 : 0;
-        int b = line.lsb().testBit(x) ? 0b001 : 0;
+    /**
+     * Remplit le tableau donné avec la couleur ARGB de chaque pixel de
+     * l'image, ligne après ligne, la couleur i de l'image étant remplacée par
+     * l'élément i de la palette donnée
+     * 
+     * @param argb
+     *            le tableau à remplir, d'au moins width * height éléments
+     * @param palette
+     *            les quatre couleurs ARGB correspondant aux couleurs 0 à 3
+     * @throws IllegalArgumentException
+     *             si la palette n'a pas quatre couleurs ou si le tableau est
+     *             trop petit
+     */
+    public void copyPixels(int[] argb, int[] palette) {
+
+        Preconditions.checkArgument(palette.length == 4);
+        Preconditions.checkArgument(argb.length >= pixels.length);
 
-        return a | b;
+        for (int i = 0; i < pixels.length; ++i)
+            argb[i] = palette[pixels[i]];
     }
 
     /**
-     * Retourne le hachage de l'image (fonction générée par eclipse)
+     * Copie les couleurs (de 0 à 3) des pixels de l'image, ligne après ligne,
+     * dans le tableau donné
+     * 
+     * @param colors
+     *            le tableau à remplir, d'au moins width * height éléments
+     * @throws IllegalArgumentException
+     *             si le tableau est trop petit
+     */
+    public void copyColors(byte[] colors) {
+
+        Preconditions.checkArgument(colors.length >= pixels.length);
+        System.arraycopy(pixels, 0, colors, 0, pixels.length);
+    }
+
+    /**
+     * Retourne le hachage de l'image, calculé à partir des couleurs de ses
+     * pixels
      */
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = 1;
         result = prime * result + height;
-        result = prime * result
-                + ((lineList == null) ? 0 : lineList.hashCode());
         result = prime * result + width;
+        result = prime * result + Arrays.hashCode(pixels);
         return result;
     }
 
     /**
-     * Détermine si l'image est égal à l'objet passé en argument
+     * Détermine si l'image est égal à l'objet passé en argument, c'est-à-dire
+     * si elle a la même taille et les mêmes couleurs
      * 
      * @param obj
      *            objet dont on teste l'égalité avec l'image
@@ -119,16 +193,8 @@ public final class LcdImage {
         if (getClass() != obj.getClass())
             return false;
         LcdImage other = (LcdImage) obj;
-        if (height != other.height)
-            return false;
-        if (lineList == null) {
-            if (other.lineList != null)
-                return false;
-        } else if (!lineList.equals(other.lineList))
-            return false;
-        if (width != other.width)
-            return false;
-        return true;
+        return height == other.height && width == other.width
+                && Arrays.equals(pixels, other.pixels);
     }
 
     public static final class Builder {
@@ -0,0 +1,235 @@
+package ch.epfl.gameboj.component.lcd;
+
+import ch.epfl.gameboj.Preconditions;
+import ch.epfl.gameboj.bits.BitPlanes;
+import ch.epfl.gameboj.bits.MutableBitVector;
+
+/**
+ * @author Alvaro Cauderan ( 282186)
+ * @author Gauthier Boeshertz (283192)
+ * 
+ *         Ligne d'image modifiable, pendant de LcdImageLine dont les
+ *         opérations (extraction, décalage, changement de couleurs,
+ *         superposition et jointure) modifient la ligne en place, ce qui
+ *         permet de composer une ligne de l'écran sans rien allouer. Le
+ *         changement de couleurs, la superposition et la jointure traitent
+ *         les trois plans en une seule passe (voir BitPlanes).
+ */
+public final class MutableLcdImageLine {
+
+    private final MutableBitVector msb;
+    private final MutableBitVector lsb;
+    private final MutableBitVector opacity;
+    private final static int IDENTITY_PALETTE = 0b11100100;
+
+    /**
+     * Construit une ligne modifiable transparente dont tous les pixels sont de
+     * couleur 0
+     * 
+     * @param size
+     *            la taille de la ligne
+     * @throws IllegalArgumentException
+     *             si la taille n'est pas un multiple de 32 strictement positif
+     */
+    public MutableLcdImageLine(int size) {
+
+        Preconditions.checkArgument(size % 32 == 0 && size > 0);
+        msb = new MutableBitVector(size);
+        lsb = new MutableBitVector(size);
+        opacity = new MutableBitVector(size);
+    }
+
+    /**
+     * retourne la taille de la ligne
+     * 
+     * @return la taille de la ligne
+     */
+    public int size() {
+        return msb.size();
+    }
+
+    /**
+     * retourne le vecteur d'opacité de la ligne, qui est modifié par les
+     * opérations suivantes sur la ligne
+     * 
+     * @return le vecteur d'opacité
+     */
+    public MutableBitVector opacity() {
+        return opacity;
+    }
+
+    /**
+     * rend la ligne transparente, de couleur 0
+     * 
+     * @return la ligne
+     */
+    public MutableLcdImageLine clear() {
+
+        msb.fill(false);
+        lsb.fill(false);
+        opacity.fill(false);
+        return this;
+    }
+
+    /**
+     * copie la ligne donnée dans la ligne
+     * 
+     * @param line
+     *            la ligne à copier
+     * @return la ligne
+     * @throws IllegalArgumentException
+     *             si les lignes ne sont pas de même taille
+     */
+    public MutableLcdImageLine set(LcdImageLine line) {
+
+        msb.set(line.msb());
+        lsb.set(line.lsb());
+        opacity.set(line.opacity());
+        return this;
+    }
+
+    /**
+     * Définit les octets de poids fort et faible d'un groupe de 8 pixels,
+     * l'opacité étant, comme pour LcdImageLine.Builder, le "ou" des deux
+     * 
+     * @param index
+     *            l'index de l'octet
+     * @param octetmsb
+     *            l'octet de poids fort
+     * @param octetlsb
+     *            l'octet de poids faible
+     * @return la ligne
+     * @throws IllegalArgumentException
+     *             si un des octets n'est pas une valeur de 8 bits
+     * @throws IndexOutOfBoundsException
+     *             si l'index ne désigne pas un octet de la ligne
+     */
+    public MutableLcdImageLine setBytes(int index, int octetmsb,
+            int octetlsb) {
+
+        msb.setByte(index, octetmsb);
+        lsb.setByte(index, octetlsb);
+        opacity.setByte(index, octetmsb | octetlsb);
+        return this;
+    }
+
+    /**
+     * remplace la ligne par l'extraction, de sa taille, de l'extension par
+     * enroulement de la ligne donnée
+     * 
+     * @param line
+     *            la ligne dont on extrait les pixels, différente de celle-ci
+     * @param x
+     *            l'index du premier pixel extrait
+     * @return la ligne
+     */
+    public MutableLcdImageLine extract(MutableLcdImageLine line, int x) {
+
+        msb.extractWrapped(line.msb, x);
+        lsb.extractWrapped(line.lsb, x);
+        opacity.extractWrapped(line.opacity, x);
+        return this;
+    }
+
+    /**
+     * décale la ligne de la distance donnée
+     * 
+     * @param shift
+     *            la distance, vers la droite si elle est positive
+     * @return la ligne
+     */
+    public MutableLcdImageLine shift(int shift) {
+
+        msb.shift(shift);
+        lsb.shift(shift);
+        opacity.shift(shift);
+        return this;
+    }
+
+    /**
+     * transforme les couleurs de la ligne selon la palette donnée, comme
+     * LcdImageLine.mapColors
+     * 
+     * @param colors
+     *            la palette, la couleur i étant codée par les bits 2i et 2i+1
+     * @return la ligne
+     * @throws IllegalArgumentException
+     *             si la palette n'est pas une valeur de 8 bits
+     */
+    public MutableLcdImageLine mapColors(int colors) {
+
+        Preconditions.checkBits8(colors);
+        if (colors == IDENTITY_PALETTE)
+            return this;
+
+        BitPlanes.mapColors(msb, lsb, colors);
+        return this;
+    }
+
+    /**
+     * place la ligne donnée au-dessus de la ligne, selon l'opacité de la
+     * ligne donnée
+     * 
+     * @param lineUp
+     *            la ligne à placer au-dessus
+     * @return la ligne
+     * @throws IllegalArgumentException
+     *             si les lignes ne sont pas de même taille
+     */
+    public MutableLcdImageLine below(MutableLcdImageLine lineUp) {
+        return below(lineUp, lineUp.opacity);
+    }
+
+    /**
+     * place la ligne donnée au-dessus de la ligne, selon l'opacité donnée
+     * 
+     * @param line
+     *            la ligne à placer au-dessus
+     * @param newOp
+     *            l'opacité à utiliser pour la ligne du dessus
+     * @return la ligne
+     * @throws IllegalArgumentException
+     *             si les lignes ou l'opacité ne sont pas de même taille
+     */
+    public MutableLcdImageLine below(MutableLcdImageLine line,
+            MutableBitVector newOp) {
+
+        Preconditions.checkArgument(size() == line.size());
+        BitPlanes.below(msb, lsb, opacity, line.msb, line.lsb, newOp);
+        return this;
+    }
+
+    /**
+     * joint la ligne et la ligne donnée : les pixels d'index inférieur à
+     * l'index donné sont ceux de la ligne, les autres ceux de la ligne donnée
+     * 
+     * @param line
+     *            la ligne à joindre
+     * @param index
+     *            l'index du premier pixel de la ligne donnée
+     * @return la ligne
+     * @throws IllegalArgumentException
+     *             si les lignes ne sont pas de même taille ou si l'index
+     *             n'est pas compris entre 0 et la taille
+     */
+    public MutableLcdImageLine join(MutableLcdImageLine line, int index) {
+
+        Preconditions.checkArgument(size() == line.size());
+        Preconditions.checkArgument(index >= 0 && index < size());
+
+        BitPlanes.join(msb, lsb, opacity, line.msb, line.lsb, line.opacity,
+                index);
+        return this;
+    }
+
+    /**
+     * Construit une ligne immuable ayant le contenu actuel de la ligne
+     * 
+     * @return une copie immuable de la ligne
+     */
+    public LcdImageLine toLcdImageLine() {
+
+        return new LcdImageLine(msb.toBitVector(), lsb.toBitVector(),
+                opacity.toBitVector());
+    }
+}
@@ -2,6 +2,7 @@
 package ch.epfl.gameboj.component.memory;
 
 import ch.epfl.gameboj.AddressMap;
+import ch.epfl.gameboj.Bus;
 import ch.epfl.gameboj.Preconditions;
 import ch.epfl.gameboj.component.Component;
 import ch.epfl.gameboj.component.cartridge.Cartridge;
@@ -19,6 +20,7 @@ public class BootRomController implements Component {
     Cartridge cartridge;
     BootRom bootRom;
     boolean active = true;
+    private Bus bus;
     /**
      * construit un controleur de la mémoire morte du démarrage auquel la cartouche donnée est attachée
      * @param cartridge cartouche à attacher au controleur
@@ -57,15 +59,63 @@ public class BootRomController implements Component {
         if (address == AddressMap.REG_BOOT_ROM_DISABLE) {
 
             active = false;
+            mapRom();
 
         }
 
         else {
             cartridge.write(address, data);
+            if (address < AddressMap.VIDEO_RAM_START)
+                mapRom();
         }
 
     }
+
+    /**
+     * fait lire directement par le bus les banques visibles de la cartouche
+     * et, tant qu'elle est active, la mémoire de démarrage par-dessus
+     */
+    private void mapRom() {
+        if (bus == null)
+            return;
+
+        cartridge.mapTo(bus);
+        if (active)
+            bus.mapDirect(AddressMap.BOOT_ROM_START, AddressMap.BOOT_ROM_END,
+                    BootRom.DATA, 0);
+    }
     
+    /**
+     * la mémoire de démarrage et celles de la cartouche ne changent que
+     * lorsqu'on y écrit
+     * 
+     * @see ch.epfl.gameboj.component.Component#nextChangeCycle(int, long)
+     */
+    @Override
+    public long nextChangeCycle(int address, long cycle) {
+
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * attache le controleur au bus donné, pour les plages de la mémoire morte
+     * et de la mémoire vive de la cartouche ainsi que pour le registre qui
+     * désactive la mémoire de démarrage
+     * 
+     * @param bus
+     *            le bus auquel le controleur sera attaché
+     */
+    @Override
+    public void attachTo(Bus bus) {
+
+        bus.attach(this, 0, AddressMap.VIDEO_RAM_START);
+        bus.attach(this, AddressMap.VIDEO_RAM_END, AddressMap.WORK_RAM_START);
+        bus.attach(this, AddressMap.REG_BOOT_ROM_DISABLE,
+                AddressMap.REG_BOOT_ROM_DISABLE + 1);
+        this.bus = bus;
+        mapRom();
+    }
+
     public void setCartridgeRam(byte[] byteArray) {
         cartridge.setMBCRam(byteArray);
     }
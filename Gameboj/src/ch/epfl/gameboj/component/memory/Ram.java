@@ -1,5 +1,6 @@
 package ch.epfl.gameboj.component.memory;
 
+import ch.epfl.gameboj.Bus;
 import ch.epfl.gameboj.Preconditions;
 
 /**
@@ -77,4 +78,66 @@ public class Ram {
         }
     }
 
+    /**
+     * comme read, pour un index que l'appelant a déjà vérifié
+     * 
+     * @param index l'index, compris entre 0 (inclus) et la taille (exclue)
+     * 
+     * @return l'octet se trouvant à l'index donné
+     */
+    public int readUnchecked(int index) {
+        return Byte.toUnsignedInt(ram[index]);
+    }
+
+    /**
+     * comme write, pour un index et une valeur que l'appelant a déjà
+     * vérifiés
+     * 
+     * @param index l'index, compris entre 0 (inclus) et la taille (exclue)
+     * 
+     * @param value la valeur 8 bits à écrire
+     */
+    public void writeUnchecked(int index, int value) {
+        ram[index] = (byte) value;
+    }
+
+    /**
+     * copie d'un bloc les octets de la plage donnée de cette mémoire dans une
+     * autre mémoire
+     * 
+     * @param index l'index du premier octet à copier
+     * 
+     * @param destination la mémoire dans laquelle copier les octets
+     * 
+     * @param destinationIndex l'index du premier octet écrit dans la
+     * destination
+     * 
+     * @param length le nombre d'octets à copier
+     * 
+     * @throws IndexOutOfBoundsException si une des deux plages sort de sa
+     * mémoire
+     */
+    public void copyTo(int index, Ram destination, int destinationIndex,
+            int length) {
+        System.arraycopy(ram, index, destination.ram, destinationIndex,
+                length);
+    }
+
+    /**
+     * fait lire par le bus donné la plage donnée directement dans le tableau
+     * de cette mémoire ; les écritures, elles, passent toujours par write
+     * 
+     * @param bus le bus qui lira la mémoire
+     * 
+     * @param address l'adresse, en début de page, de l'octet d'index donné
+     * 
+     * @param index l'index du premier octet de la plage
+     * 
+     * @param length la taille de la plage, en pages entières
+     * 
+     * @throws IllegalArgumentException si la plage n'est pas valide
+     */
+    public void mapTo(Bus bus, int address, int index, int length) {
+        bus.mapDirect(address, address + length, ram, index);
+    }
 }
@@ -1,5 +1,7 @@
 package ch.epfl.gameboj.component.memory;
 
+import ch.epfl.gameboj.AddressMap;
+import ch.epfl.gameboj.Bus;
 import ch.epfl.gameboj.Preconditions;
 import ch.epfl.gameboj.component.Component;
 import ch.epfl.gameboj.component.memory.Ram;
@@ -82,4 +84,73 @@ public final class RamController implements Component {
 
     }
 
+    /**
+     * lit la mémoire sans revérifier l'adresse, déjà vérifiée par le bus
+     * 
+     * @see ch.epfl.gameboj.component.Component#readUnchecked(int)
+     */
+    @Override
+    public int readUnchecked(int address) {
+        return address < startAddress || address >= endAddress ? NO_DATA
+                : ram.readUnchecked(address - startAddress);
+    }
+
+    /**
+     * écrit dans la mémoire sans revérifier l'adresse ni la donnée, déjà
+     * vérifiées par le bus
+     * 
+     * @see ch.epfl.gameboj.component.Component#writeUnchecked(int, int)
+     */
+    @Override
+    public void writeUnchecked(int address, int data) {
+        if (address >= startAddress && address < endAddress)
+            ram.writeUnchecked(address - startAddress, data);
+    }
+
+    /**
+     * copie directement les octets de la mémoire contrôlée si la plage
+     * demandée lui appartient entièrement
+     * 
+     * @see ch.epfl.gameboj.component.Component#copyTo(int, Ram, int, int)
+     */
+    @Override
+    public boolean copyTo(int address, Ram destination, int destinationIndex,
+            int length) {
+
+        if (address < startAddress || address + length > endAddress)
+            return false;
+
+        ram.copyTo(address - startAddress, destination, destinationIndex,
+                length);
+        return true;
+    }
+
+    /**
+     * la mémoire ne change que lorsqu'on y écrit
+     * 
+     * @see ch.epfl.gameboj.component.Component#nextChangeCycle(int, long)
+     */
+    @Override
+    public long nextChangeCycle(int address, long cycle) {
+
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * attache le controleur au bus donné, pour la plage d'adresses qu'il
+     * contrôle ; si elle est formée de pages entières, situées avant les
+     * registres, le bus y lit directement la mémoire
+     * 
+     * @param bus
+     *            le bus auquel le controleur sera attaché
+     */
+    @Override
+    public void attachTo(Bus bus) {
+
+        bus.attach(this, startAddress, endAddress);
+        if ((startAddress & 0xFF) == 0 && (endAddress & 0xFF) == 0
+                && endAddress <= AddressMap.REGS_START)
+            ram.mapTo(bus, startAddress, 0, endAddress - startAddress);
+    }
+
 }
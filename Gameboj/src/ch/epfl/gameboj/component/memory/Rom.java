@@ -2,6 +2,7 @@ package ch.epfl.gameboj.component.memory;
 
 import java.util.Arrays;
 
+import ch.epfl.gameboj.Bus;
 import ch.epfl.gameboj.Preconditions;
 
 /**
@@ -58,4 +59,25 @@ public final class Rom {
             throw new IndexOutOfBoundsException("ear");
         }
     }
+
+    /**
+     * fait lire directement par le bus donné les octets de la plage donnée de
+     * cette mémoire, à partir de l'adresse donnée
+     * 
+     * @param bus
+     *            le bus qui lira la mémoire
+     * @param address
+     *            l'adresse, début de page, à laquelle se trouve l'octet
+     *            d'index donné
+     * @param index
+     *            l'index du premier octet de la plage
+     * @param length
+     *            la taille de la plage, multiple de la taille d'une page
+     * @throws IllegalArgumentException
+     *             si la plage n'est pas valide
+     * @see Bus#mapDirect(int, int, byte[], int)
+     */
+    public void mapTo(Bus bus, int address, int index, int length) {
+        bus.mapDirect(address, address + length, rom, index);
+    }
 }
@@ -0,0 +1,193 @@
+package ch.epfl.gameboj.gui;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import ch.epfl.gameboj.GameBoy;
+import ch.epfl.gameboj.Preconditions;
+import ch.epfl.gameboj.component.Joypad;
+import ch.epfl.gameboj.component.lcd.LcdController;
+import ch.epfl.gameboj.component.lcd.LcdImage;
+
+/**
+ * @author Alvaro Cauderan ( 282186)
+ * @author Gauthier Boeshertz (283192)
+ *
+ *         Fil d'exécution faisant tourner une Game Boy à sa vitesse réelle
+ *         (environ 59,73 images par seconde), indépendamment du fil de
+ *         JavaFX. Les images terminées sont publiées au travers d'un triple
+ *         tampon, et les touches pressées ou relâchées passent par une file
+ *         sans verrou : elles sont appliquées entre deux images, à une limite
+ *         de cycle exacte.
+ */
+public final class EmulationThread extends Thread {
+
+    private static final long FRAME_CYCLES = 17556;
+    private static final long FRAME_NANOS = Math
+            .round(FRAME_CYCLES / GameBoy.CYCLES_PER_NANOSECOND);
+    // En deçà de cette durée, on attend activement plutôt que de se suspendre
+    private static final long SPIN_NANOS = 1_000_000;
+    // Retard au-delà duquel on renonce à rattraper les images perdues
+    private static final long MAX_LATE_NANOS = 4 * FRAME_NANOS;
+
+    /**
+     * Vitesse à laquelle l'émulation tourne aussi vite que possible
+     */
+    public static final int UNTHROTTLED = 0;
+
+    private final GameBoy gameBoy;
+    private final TripleBuffer<Frame> frames;
+    private final Queue<KeyEvent> keyEvents = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+    private volatile int speed = 1;
+
+    private static final class Frame {
+        private LcdImage image;
+    }
+
+    private static final class KeyEvent {
+        private final Joypad.Key key;
+        private final boolean pressed;
+
+        private KeyEvent(Joypad.Key key, boolean pressed) {
+            this.key = key;
+            this.pressed = pressed;
+        }
+    }
+
+    /**
+     * Construit le fil d'exécution de la Game Boy donnée, qui ne doit plus
+     * être utilisée que par ce fil une fois celui-ci démarré
+     * 
+     * @param gameBoy
+     *            la Game Boy à faire tourner
+     * @throws NullPointerException
+     *             si la Game Boy est nulle
+     */
+    public EmulationThread(GameBoy gameBoy) {
+
+        super("gameboj");
+        this.gameBoy = Objects.requireNonNull(gameBoy);
+        frames = new TripleBuffer<>(new Frame(), new Frame(), new Frame());
+        setDaemon(true);
+    }
+
+    /**
+     * retourne la dernière image publiée si elle est nouvelle, et null sinon.
+     * Ne doit être appelée que par un seul fil, celui de l'affichage.
+     * 
+     * @return la nouvelle image
+     */
+    public LcdImage acquireFrame() {
+        Frame f = frames.acquire();
+        return f == null ? null : f.image;
+    }
+
+    /**
+     * signale qu'une touche a été pressée ; peut être appelée par n'importe
+     * quel fil
+     * 
+     * @param key
+     *            la touche
+     */
+    public void keyPressed(Joypad.Key key) {
+        keyEvents.add(new KeyEvent(Objects.requireNonNull(key), true));
+    }
+
+    /**
+     * signale qu'une touche a été relâchée ; peut être appelée par n'importe
+     * quel fil
+     * 
+     * @param key
+     *            la touche
+     */
+    public void keyReleased(Joypad.Key key) {
+        keyEvents.add(new KeyEvent(Objects.requireNonNull(key), false));
+    }
+
+    /**
+     * fixe la vitesse de l'émulation, en nombre d'images émulées par image
+     * affichée ; les images qui ne sont pas affichées ne sont pas dessinées.
+     * Peut être appelée par n'importe quel fil.
+     * 
+     * @param speed
+     *            le multiple de la vitesse réelle, ou UNTHROTTLED pour aller
+     *            aussi vite que possible
+     * @throws IllegalArgumentException
+     *             si la vitesse est négative
+     */
+    public void setSpeed(int speed) {
+
+        Preconditions.checkArgument(speed >= 0);
+        this.speed = speed;
+    }
+
+    /**
+     * demande l'arrêt du fil, qui se termine à la fin de l'image en cours
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(this);
+    }
+
+    @Override
+    public void run() {
+
+        LcdController lcd = gameBoy.getLcdController();
+        long deadline = System.nanoTime();
+        int framesInLastTick = 1;
+
+        while (running) {
+
+            int speed = this.speed;
+            deadline += FRAME_NANOS;
+
+            if (speed == UNTHROTTLED) {
+                // On n'affiche qu'une image par rafraîchissement, en sautant
+                // autant d'images qu'il en a été émulé au précédent
+                lcd.setFrameSkip(framesInLastTick - 1);
+                framesInLastTick = 0;
+                do {
+                    runFrame();
+                    ++framesInLastTick;
+                } while (running && System.nanoTime() - deadline < 0);
+            } else {
+                lcd.setFrameSkip(speed - 1);
+                for (int i = 0; i < speed; ++i)
+                    runFrame();
+            }
+
+            frames.back().image = lcd.currentImage();
+            frames.publish();
+
+            waitUntil(deadline);
+            if (System.nanoTime() - deadline > MAX_LATE_NANOS)
+                deadline = System.nanoTime();
+        }
+    }
+
+    private void runFrame() {
+
+        Joypad joypad = gameBoy.getJoyPad();
+        KeyEvent e;
+        while ((e = keyEvents.poll()) != null) {
+            if (e.pressed)
+                joypad.keyPressed(e.key);
+            else
+                joypad.keyReleased(e.key);
+        }
+
+        gameBoy.runUntil(gameBoy.cycles() + FRAME_CYCLES);
+    }
+
+    private static void waitUntil(long deadline) {
+
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > SPIN_NANOS)
+            LockSupport.parkNanos(remaining - SPIN_NANOS);
+        while (deadline - System.nanoTime() > 0)
+            Thread.onSpinWait();
+    }
+}
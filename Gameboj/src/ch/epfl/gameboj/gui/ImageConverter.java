@@ -9,6 +9,7 @@ import ch.epfl.gameboj.component.lcd.LcdController;
 import ch.epfl.gameboj.component.lcd.LcdImage;
 import javafx.scene.image.Image;
 import javafx.scene.image.WritableImage;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.PixelReader;
 import javafx.scene.image.PixelWriter;
 
@@ -29,7 +30,10 @@ public final class ImageConverter {
     private static final int[] COLOR_MAP_APOCALYPSE = new int[] { 0xFF_9E_FD_A9,
             0xFF_00_60_10, 0xFF_16_B8_4E, 0xFF_99_00_00 };
 
-    private static int color = 0;
+    private static final int[][] COLOR_MAPS = { COLOR_MAP_BASE,
+            COLOR_MAP_OCEAN, COLOR_MAP_ORIGINAL, COLOR_MAP_APOCALYPSE };
+
+    private static int[] colorMap = COLOR_MAP_BASE;
 
     private ImageConverter() {
     }
@@ -44,7 +48,16 @@ public final class ImageConverter {
      */
     public static void changeColor(int col) {
         Preconditions.checkArgument(col < 5);
-        color = col;
+        colorMap = col < COLOR_MAPS.length ? COLOR_MAPS[col] : COLOR_MAP_BASE;
+    }
+
+    /**
+     * Retourne la table des quatre couleurs ARGB actuellement choisie
+     * 
+     * @return la table des couleurs, qui ne doit pas être modifiée
+     */
+    static int[] colorMap() {
+        return colorMap;
     }
 
     public static Image convert(LcdImage imagelcd) {
@@ -57,40 +70,12 @@ public final class ImageConverter {
                 LcdController.LCD_HEIGHT);
         PixelWriter pixWriter = wImage.getPixelWriter();
 
-        if (color == 1) {
-            for (int y = 0; y < 144; ++y) {
-                for (int x = 0; x < 160; ++x) {
-                    pixWriter.setArgb(x, y,
-                            COLOR_MAP_OCEAN[imagelcd.getColor(x, y)]);
-                }
-            }
-
-        } else if (color == 2) {
-            for (int y = 0; y < 144; ++y) {
-                for (int x = 0; x < 160; ++x) {
-                    pixWriter.setArgb(x, y,
-                            COLOR_MAP_ORIGINAL[imagelcd.getColor(x, y)]);
-                }
-            }
-
-        } else if (color == 3) {
-            for (int y = 0; y < 144; ++y) {
-                for (int x = 0; x < 160; ++x) {
-                    pixWriter.setArgb(x, y,
-                            COLOR_MAP_APOCALYPSE[imagelcd.getColor(x, y)]);
-                }
-            }
-
-        } else {
-            for (int y = 0; y < 144; ++y) {
-                for (int x = 0; x < 160; ++x) {
-
-                    pixWriter.setArgb(x, y,
-                            COLOR_MAP_BASE[imagelcd.getColor(x, y)]);
-                }
-            }
-
-        }
+        int[] argb = new int[LcdController.LCD_WIDTH
+                * LcdController.LCD_HEIGHT];
+        imagelcd.copyPixels(argb, colorMap);
+        pixWriter.setPixels(0, 0, LcdController.LCD_WIDTH,
+                LcdController.LCD_HEIGHT, PixelFormat.getIntArgbInstance(),
+                argb, 0, LcdController.LCD_WIDTH);
 
         return (Image) wImage;
 
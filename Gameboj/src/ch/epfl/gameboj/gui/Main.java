@@ -8,6 +8,8 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.RadioMenuItem;
+import javafx.scene.control.ToggleGroup;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
@@ -36,6 +38,8 @@ public final class Main extends Application {
             4);
 
     private static GameBoy gb;
+    private EmulationThread emulation;
+    private LcdImage shownFrame;
 
     public static void main(String[] args) {
         Application.launch(args);
@@ -73,7 +77,8 @@ public final class Main extends Application {
         String gameName = getParameters().getRaw().get(0);
         File romFile = new File(gameName);
         gb = new GameBoy(Cartridge.ofFile(romFile));
-        Joypad joypad = gb.getJoyPad();
+        emulation = new EmulationThread(gb);
+        shownFrame = gb.getLcdController().currentImage();
 
         MenuBar bar = new MenuBar();
         Menu menu = new Menu("Options");
@@ -81,7 +86,7 @@ public final class Main extends Application {
         Menu colorMenu = new Menu("Colors");
         MenuItem screenshot = new MenuItem("Screenshot");
         screenshot.setOnAction(e -> {
-            LcdImage li = gb.getLcdController().currentImage();
+            LcdImage li = shownFrame;
             Date date = new Date();
             BufferedImage image = new BufferedImage(li.getWidth(),
                     li.getHeight(), BufferedImage.TYPE_INT_RGB);
@@ -97,11 +102,21 @@ public final class Main extends Application {
             }
         });
 
-        /// SPEED
+        ToggleGroup speeds = new ToggleGroup();
+        for (int speed : new int[] { 1, 2, 4, EmulationThread.UNTHROTTLED }) {
+            RadioMenuItem item = new RadioMenuItem(
+                    speed == EmulationThread.UNTHROTTLED ? "Unthrottled"
+                            : speed + "x");
+            item.setToggleGroup(speeds);
+            item.setSelected(speed == 1);
+            item.setOnAction(e -> emulation.setSpeed(speed));
+            speedMenu.getItems().add(item);
+        }
+        bar.getMenus().add(speedMenu);
 
+        ScreenImage screen = new ScreenImage();
         ImageView imageView = new ImageView();
-        imageView.setImage(
-                ImageConverter.convert(gb.getLcdController().currentImage()));
+        imageView.setImage(screen.update(shownFrame));
         BorderPane border = new BorderPane();
         border.setTop(bar);
         border.setCenter(imageView);
@@ -123,10 +138,10 @@ public final class Main extends Application {
             Joypad.Key key = mapArrows.get(e.getCode());
             Joypad.Key keyLetter = mapLetters.get(e.getText());
             if (key != null) {
-                joypad.keyPressed(key);
+                emulation.keyPressed(key);
             } else {
                 if (mapLetters.get(e.getText()) != null) {
-                    joypad.keyPressed(keyLetter);
+                    emulation.keyPressed(keyLetter);
                 } else {
                 }
 
@@ -138,10 +153,10 @@ public final class Main extends Application {
             Joypad.Key key = mapArrows.get(e.getCode());
             Joypad.Key keyLetter = mapLetters.get(e.getText());
             if (key != null) {
-                joypad.keyReleased(key);
+                emulation.keyReleased(key);
             } else {
                 if (mapLetters.get(e.getText()) != null) {
-                    joypad.keyReleased(keyLetter);
+                    emulation.keyReleased(keyLetter);
                 } else {
 
                 }
@@ -152,12 +167,15 @@ public final class Main extends Application {
         AnimationTimer timer = new AnimationTimer() {
             @Override
             public void handle(long now) {
-                gb.runUntil(17556 + gb.cycles());
-                imageView.setImage(ImageConverter
-                        .convert(gb.getLcdController().currentImage()));
-
+                LcdImage frame = emulation.acquireFrame();
+                if (frame != null) {
+                    screen.update(frame);
+                    shownFrame = frame;
+                }
             }
         };
+        stage.setOnCloseRequest(e -> emulation.shutdown());
+        emulation.start();
         timer.start();
 
     }
@@ -0,0 +1,71 @@
+package ch.epfl.gameboj.gui;
+
+import java.util.Arrays;
+
+import ch.epfl.gameboj.Preconditions;
+import ch.epfl.gameboj.component.lcd.LcdController;
+import ch.epfl.gameboj.component.lcd.LcdImage;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * @author Alvaro Cauderan ( 282186)
+ * @author Gauthier Boeshertz (283192)
+ *
+ *         Image JavaFX persistante affichant l'écran du Game Boy. Chaque
+ *         nouvelle image de l'écran est convertie dans un tableau de pixels
+ *         réutilisé, puis seules les lignes qui ont changé depuis l'image
+ *         précédente sont écrites dans l'image JavaFX, d'un seul bloc.
+ */
+public final class ScreenImage {
+
+    private static final int WIDTH = LcdController.LCD_WIDTH;
+    private static final int HEIGHT = LcdController.LCD_HEIGHT;
+
+    private final WritableImage image = new WritableImage(WIDTH, HEIGHT);
+    private final int[] argb = new int[WIDTH * HEIGHT];
+    private final int[] shown = new int[WIDTH * HEIGHT];
+    private boolean empty = true;
+
+    /**
+     * met à jour l'image JavaFX avec l'image de l'écran donnée, en utilisant
+     * la table de couleurs choisie dans ImageConverter
+     * 
+     * @param lcdImage
+     *            l'image de l'écran
+     * @return l'image JavaFX, toujours la même
+     * @throws IllegalArgumentException
+     *             si l'image n'a pas la taille de l'écran
+     */
+    public Image update(LcdImage lcdImage) {
+
+        Preconditions.checkArgument(
+                lcdImage.getWidth() == WIDTH && lcdImage.getHeight() == HEIGHT);
+
+        lcdImage.copyPixels(argb, ImageConverter.colorMap());
+
+        int first = 0, last = HEIGHT - 1;
+        if (!empty) {
+            while (first < HEIGHT && sameLine(first))
+                ++first;
+            if (first == HEIGHT)
+                return image;
+            while (sameLine(last))
+                --last;
+        }
+
+        int from = first * WIDTH, to = (last + 1) * WIDTH;
+        image.getPixelWriter().setPixels(0, first, WIDTH, last - first + 1,
+                PixelFormat.getIntArgbInstance(), argb, from, WIDTH);
+        System.arraycopy(argb, from, shown, from, to - from);
+        empty = false;
+        return image;
+    }
+
+    private boolean sameLine(int y) {
+
+        int from = y * WIDTH, to = from + WIDTH;
+        return Arrays.equals(argb, from, to, shown, from, to);
+    }
+}
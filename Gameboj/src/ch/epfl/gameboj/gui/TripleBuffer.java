@@ -0,0 +1,83 @@
+package ch.epfl.gameboj.gui;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Alvaro Cauderan ( 282186)
+ * @author Gauthier Boeshertz (283192)
+ *
+ *         Triple tampon sans verrou permettant à un fil producteur de publier
+ *         des images à un fil consommateur. Le producteur écrit toujours dans
+ *         son tampon, le consommateur lit toujours le sien, et le troisième,
+ *         le tampon du milieu, est échangé atomiquement : aucun des deux fils
+ *         n'attend jamais l'autre, et le consommateur obtient toujours la
+ *         dernière image publiée.
+ *
+ * @param <T>
+ *            le type des tampons
+ */
+public final class TripleBuffer<T> {
+
+    private static final int INDEX_MASK = 0b11;
+    private static final int FRESH = 0b100;
+
+    private final Object[] buffers;
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;
+    private int front = 2;
+
+    /**
+     * Construit un triple tampon utilisant les trois tampons donnés
+     * 
+     * @param first
+     *            le tampon initial du producteur
+     * @param second
+     *            le tampon initial du milieu
+     * @param third
+     *            le tampon initial du consommateur
+     * @throws NullPointerException
+     *             si un des tampons est nul
+     */
+    public TripleBuffer(T first, T second, T third) {
+
+        buffers = new Object[] { Objects.requireNonNull(first),
+                Objects.requireNonNull(second), Objects.requireNonNull(third) };
+    }
+
+    /**
+     * retourne le tampon dans lequel le producteur doit écrire la prochaine
+     * image. Ne doit être appelée que par le producteur.
+     * 
+     * @return le tampon du producteur
+     */
+    @SuppressWarnings("unchecked")
+    public T back() {
+        return (T) buffers[back];
+    }
+
+    /**
+     * publie le tampon du producteur, qui reçoit en échange le tampon du
+     * milieu. Ne doit être appelée que par le producteur.
+     */
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * retourne la dernière image publiée si elle n'a pas encore été obtenue,
+     * et null sinon. Le tampon retourné reste celui du consommateur jusqu'au
+     * prochain appel. Ne doit être appelée que par le consommateur.
+     * 
+     * @return la nouvelle image, ou null s'il n'y en a pas
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+
+        if ((middle.get() & FRESH) == 0)
+            return null;
+
+        front = middle.getAndSet(front) & INDEX_MASK;
+        return (T) buffers[front];
+    }
+}
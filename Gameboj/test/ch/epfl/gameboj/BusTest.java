@@ -5,6 +5,7 @@ package ch.epfl.gameboj;
 import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
 import static ch.epfl.test.TestRandomizer.newRandom;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -90,6 +91,54 @@ class BusTest {
             assertEquals((i * 2018) & 0xFF, b.read(i));
     }
 
+    @Test
+    void attachWithRangeRoutesOnlyOwnedAddresses() {
+        SimpleComponent owner = new SimpleComponent(0xC123, 42);
+        SimpleComponent other = new SimpleComponent(0xFF05, 7);
+        Bus b = new Bus();
+        b.attach(owner, 0xC000, 0xE000);
+        b.attach(other, 0xFF05, 0xFF06);
+        assertEquals(42, b.read(0xC123));
+        assertEquals(7, b.read(0xFF05));
+        assertEquals(0xFF, b.read(0xFF06));
+        b.write(0xFF06, 1);
+        assertFalse(owner.wasWritten());
+        assertFalse(other.wasWritten());
+        b.write(0xC123, 12);
+        assertEquals(12, b.read(0xC123));
+        assertFalse(other.wasWritten());
+    }
+
+    @Test
+    void mapDirectReadsPagesFromArray() {
+        byte[] data = new byte[0x300];
+        for (int i = 0; i < data.length; ++i)
+            data[i] = (byte) (i * 7);
+        Bus b = new Bus();
+        b.attach(new SimpleComponent(0xC000, 1), 0xC000, 0xC300);
+        b.mapDirect(0xC000, 0xC200, data, 0x100);
+        for (int a = 0xC000; a < 0xC200; ++a)
+            assertEquals(((a - 0xC000 + 0x100) * 7) & 0xFF, b.read(a));
+        assertEquals(0xFF, b.read(0xC300 - 1));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> b.mapDirect(0xC010, 0xC100, data, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> b.mapDirect(0xC000, 0xC400, data, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> b.mapDirect(0xFE00, 0x10000, new byte[0x200], 0));
+    }
+
+    @Test
+    void attachWithRangeFailsForOverlappingComponents() {
+        Bus b = new Bus();
+        b.attach(new SimpleComponent(0, 0), 0x8000, 0xA000);
+        assertThrows(IllegalArgumentException.class,
+                () -> b.attach(new SimpleComponent(0, 0), 0x9F00, 0xA100));
+        assertThrows(IllegalArgumentException.class,
+                () -> b.attach(new SimpleComponent(0, 0), 0xFF00, 0x10001));
+    }
+
     @Test
     void writeFailsForInvalidAddress() {
         Random rng = newRandom();
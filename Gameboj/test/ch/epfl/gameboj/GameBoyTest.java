@@ -0,0 +1,64 @@
+package ch.epfl.gameboj;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.component.Joypad.Key;
+import ch.epfl.gameboj.component.cartridge.Cartridge;
+import ch.epfl.gameboj.component.cpu.Cpu;
+import ch.epfl.gameboj.component.lcd.LcdImage;
+
+public final class GameBoyTest {
+
+    private static final int FRAME_CYCLES = 17556;
+    private static final int FRAMES = 400;
+
+    private static long[] run(String rom, Consumer<Cpu> setup)
+            throws IOException {
+        GameBoy gb = new GameBoy(Cartridge.ofFile(new File(rom)));
+        setup.accept(gb.cpu());
+
+        long[] state = new long[FRAMES + 0x8000 + 10];
+        Key[] keys = Key.values();
+        for (int f = 0; f < FRAMES; ++f) {
+            if (f % 37 == 20)
+                gb.getJoyPad().keyPressed(keys[(f / 37) % keys.length]);
+            if (f % 37 == 30)
+                gb.getJoyPad().keyReleased(keys[(f / 37) % keys.length]);
+            gb.runUntil(gb.cycles() + FRAME_CYCLES);
+
+            LcdImage image = gb.getLcdController().currentImage();
+            CRC32 crc = new CRC32();
+            for (int y = 0; y < image.getHeight(); ++y)
+                for (int x = 0; x < image.getWidth(); ++x)
+                    crc.update(image.getColor(x, y));
+            state[f] = crc.getValue();
+        }
+        for (int a = 0; a < 0x8000; ++a)
+            state[FRAMES + a] = gb.bus().read(0x8000 + a);
+        int[] regs = gb.cpu()._testGetPcSpAFBCDEHL();
+        for (int i = 0; i < regs.length; ++i)
+            state[FRAMES + 0x8000 + i] = regs[i];
+        return state;
+    }
+
+    @Test
+    void blockExecutionMatchesInterpreterOnRom() throws IOException {
+        for (String rom : new String[] { "snake.gb", "Zelda" })
+            assertArrayEquals(run(rom, cpu -> {}),
+                    run(rom, cpu -> cpu.useBlockExecution(true)));
+    }
+
+    @Test
+    void aluTablesMatchComputedAluOnRom() throws IOException {
+        for (String rom : new String[] { "snake.gb", "Zelda" })
+            assertArrayEquals(run(rom, cpu -> {}),
+                    run(rom, cpu -> cpu.useAluTables(true)));
+    }
+}
@@ -0,0 +1,36 @@
+package ch.epfl.gameboj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.Test;
+
+public final class HeadlessMainTest {
+
+    private static String finalImage(String renderInterval)
+            throws IOException {
+        PrintStream out = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer));
+        try {
+            HeadlessMain.main(new String[] { "Zelda", "3000000", "-render",
+                    renderInterval });
+        } finally {
+            System.setOut(out);
+        }
+        for (String line : buffer.toString().split("\\R"))
+            if (line.startsWith("image "))
+                return line;
+        return null;
+    }
+
+    @Test
+    void finalImageDoesNotDependOnRenderInterval() throws IOException {
+        String expected = finalImage("1");
+        for (String interval : new String[] { "0", "2", "30" })
+            assertEquals(expected, finalImage(interval));
+    }
+}
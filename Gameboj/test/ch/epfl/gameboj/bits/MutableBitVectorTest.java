@@ -0,0 +1,60 @@
+package ch.epfl.gameboj.bits;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class MutableBitVectorTest {
+
+    private static BitVector randomVector(Random rng, int size) {
+        BitVector.Builder b = new BitVector.Builder(size);
+        for (int i = 0; i < size / Byte.SIZE; ++i)
+            b.setByte(i, rng.nextInt(0x100));
+        return b.build();
+    }
+
+    @Test
+    void inPlaceOperationsMatchImmutableOnes() {
+        Random rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            int size = 32 * (1 + rng.nextInt(8));
+            BitVector v1 = randomVector(rng, size);
+            BitVector v2 = randomVector(rng, size);
+            MutableBitVector m2 = new MutableBitVector(size).set(v2);
+            MutableBitVector dest = new MutableBitVector(size);
+            int index = rng.nextInt(4 * size) - 2 * size;
+
+            assertEquals(v1.not(), v1.notInto(dest).toBitVector());
+            assertEquals(v1.and(v2), v1.andInto(v2, dest).toBitVector());
+            assertEquals(v1.or(v2), v1.orInto(v2, dest).toBitVector());
+            assertEquals(v1.shift(index), v1.shiftInto(index, dest).toBitVector());
+            assertEquals(v1.extractWrapped(index, size),
+                    v1.extractWrappedInto(index, dest).toBitVector());
+            assertEquals(v1.extractZeroExtended(index, size),
+                    v1.extractZeroExtendedInto(index, dest).toBitVector());
+
+            assertEquals(v1.and(v2), dest.set(v1).and(m2).toBitVector());
+            assertEquals(v1.or(v2), dest.set(v1).or(m2).toBitVector());
+            assertEquals(v1.and(v2.not()), dest.set(v1).andNot(m2).toBitVector());
+            assertEquals(v1.not(), dest.set(v1).not().toBitVector());
+            assertEquals(v1.shift(index), dest.set(v1).shift(index).toBitVector());
+            assertEquals(v2.extractWrapped(index, size),
+                    dest.extractWrapped(m2, index).toBitVector());
+        }
+    }
+
+    @Test
+    void inPlaceOperationsFailForDifferentSizes() {
+        BitVector v = new BitVector(64);
+        MutableBitVector m = new MutableBitVector(32);
+        assertThrows(IllegalArgumentException.class, () -> v.notInto(m));
+        assertThrows(IllegalArgumentException.class, () -> m.set(v));
+        assertThrows(IllegalArgumentException.class,
+                () -> m.or(new MutableBitVector(64)));
+    }
+}
@@ -158,4 +158,47 @@ public final class TimerTest implements ComponentTest {
             assertEquals(t.read(0xFF05), tma);
         }
     }
+
+    @Test
+    void cycleCatchesUpSkippedCyclesUntilNextEvent() {
+        for (int tac = 0b100; tac <= 0b111; ++tac) {
+            Timer t1 = newComponent(), t2 = newComponent();
+            t1.write(0xFF07, tac);
+            t2.write(0xFF07, tac);
+            long c2 = 0;
+            for (int c = 0; c < 0x2_0000; ++c) {
+                t1.cycle(c);
+                if (c == c2 || c == 0x1_FFFF) {
+                    t2.cycle(c);
+                    c2 = t2.nextEventCycle(c + 1);
+                    assertEquals(t1.read(0xFF04), t2.read(0xFF04));
+                    assertEquals(t1.read(0xFF05), t2.read(0xFF05));
+                }
+            }
+        }
+    }
+
+    @Test
+    void overflowIsScheduledAndRaisesInterruptOnTime() {
+        for (int tac = 0b100; tac <= 0b111; ++tac) {
+            Cpu cpu1 = new Cpu(), cpu2 = new Cpu();
+            Timer t1 = new Timer(cpu1), t2 = new Timer(cpu2);
+            for (Timer t : new Timer[] { t1, t2 }) {
+                t.write(0xFF07, tac);
+                t.write(0xFF06, 0xF0);
+            }
+            long c2 = t2.nextEventCycle(0);
+            for (int c = 0; c < 0x2_0000; ++c) {
+                t1.cycle(c);
+                if (c == c2) {
+                    t2.cycle(c);
+                    c2 = t2.nextEventCycle(c + 1);
+                }
+                assertEquals(cpu1.read(0xFF0F), cpu2.read(0xFF0F));
+                cpu1.write(0xFF0F, 0);
+                cpu2.write(0xFF0F, 0);
+            }
+            assertEquals(t1.read(0xFF05), t2.read(0xFF05));
+        }
+    }
 }
@@ -0,0 +1,252 @@
+package ch.epfl.gameboj.component.cpu;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.AddressMap;
+import ch.epfl.gameboj.Bus;
+import ch.epfl.gameboj.Scheduler;
+import ch.epfl.gameboj.component.cartridge.MBC1;
+import ch.epfl.gameboj.component.lcd.LcdController;
+import ch.epfl.gameboj.component.memory.Ram;
+import ch.epfl.gameboj.component.memory.RamController;
+import ch.epfl.gameboj.component.memory.Rom;
+
+public final class CpuTest {
+
+    private static Cpu newCpu(int[] program) {
+        return newCpu(new Bus(), new Cpu(), program);
+    }
+
+    private static Cpu newCpu(Bus bus, Cpu cpu, int[] program) {
+        Ram low = new Ram(0x100);
+        Ram work = new Ram(AddressMap.WORK_RAM_SIZE);
+        new RamController(low, 0).attachTo(bus);
+        new RamController(work, AddressMap.WORK_RAM_START).attachTo(bus);
+        cpu.attachTo(bus);
+
+        // JP C000
+        bus.write(0, 0xC3);
+        bus.write(1, 0x00);
+        bus.write(2, 0xC0);
+        for (int i = 0; i < program.length; ++i)
+            bus.write(AddressMap.WORK_RAM_START + i, program[i]);
+        return cpu;
+    }
+
+    private static void run(Cpu cpu, long cycles) {
+        for (long c = 0; c < cycles; ++c)
+            cpu.cycle(c);
+    }
+
+    @Test
+    void codeModifiedInsideCurrentBlockIsExecutedModified() {
+        Cpu cpu = newCpu(new int[] {
+                0x21, 0x07, 0xC0, // LD HL, C007
+                0x36, 0x3D,       // LD (HL), 3D (DEC A)
+                0x3E, 0x05,       // LD A, 5
+                0x3C,             // INC A, remplacé par DEC A
+                0x76 });          // HALT
+        run(cpu, 100);
+        assertEquals(4, cpu._testGetPcSpAFBCDEHL()[2]);
+    }
+
+    @Test
+    void codeModifiedAfterBeingExecutedIsDecodedAgain() {
+        Cpu cpu = newCpu(new int[] {
+                0x3E, 0x00,       // LD A, 0
+                0x06, 0x02,       // LD B, 2
+                0x18, 0x00,       // JR C006
+                0x3C,             // C006: INC A, remplacé par DEC A
+                0x21, 0x06, 0xC0, // LD HL, C006
+                0x36, 0x3D,       // LD (HL), 3D (DEC A)
+                0x05,             // DEC B
+                0x20, 0xF7,       // JR NZ, C006
+                0x76 });          // HALT
+        run(cpu, 200);
+        assertEquals(0, cpu._testGetPcSpAFBCDEHL()[2]);
+    }
+
+    @Test
+    void codeOfEachRomBankIsExecutedAfterSwitchingBackAndForth() {
+        byte[] data = new byte[0x10000];
+        data[0] = (byte) 0xC3;              // JP C000
+        data[2] = (byte) 0xC0;
+        data[0x4000] = 0x04;                // banque 1 : INC B
+        data[0x4001] = (byte) 0xC9;         // RET
+        data[0x8000] = 0x0C;                // banque 2 : INC C
+        data[0x8001] = (byte) 0xC9;         // RET
+
+        int[] program = new int[3 + 5 * 8 + 1];
+        program[0] = 0x31;                  // LD SP, E000
+        program[2] = 0xE0;
+        for (int i = 0; i < 5; ++i) {
+            int p = 3 + 8 * i;
+            program[p] = 0x3E;              // LD A, banque
+            program[p + 1] = 1 + i % 2;
+            program[p + 2] = 0xEA;          // LD (2000), A
+            program[p + 3] = 0x00;
+            program[p + 4] = 0x20;
+            program[p + 5] = 0xCD;          // CALL 4000
+            program[p + 6] = 0x00;
+            program[p + 7] = 0x40;
+        }
+        program[3 + 5 * 8] = 0x76;          // HALT
+
+        for (boolean blockExecution : new boolean[] { false, true }) {
+            Bus bus = new Bus();
+            Cpu cpu = new Cpu();
+            cpu.useBlockExecution(blockExecution);
+            Ram work = new Ram(AddressMap.WORK_RAM_SIZE);
+            new RamController(work, AddressMap.WORK_RAM_START).attachTo(bus);
+            new MBC1(new Rom(data), 0).attachTo(bus);
+            cpu.attachTo(bus);
+            for (int i = 0; i < program.length; ++i)
+                bus.write(AddressMap.WORK_RAM_START + i, program[i]);
+
+            run(cpu, 400);
+            int[] regs = cpu._testGetPcSpAFBCDEHL();
+            assertEquals(3, regs[4]);
+            assertEquals(2, regs[5]);
+        }
+    }
+
+    @Test
+    void haltedCpuWakesOnlyForEnabledInterruptsInPriorityOrder() {
+        Bus bus = new Bus();
+        Cpu cpu = newCpu(bus, new Cpu(), new int[] {
+                0x3E, 0x05,       // LD A, 05 : VBLANK et TIMER
+                0xE0, 0xFF,       // LDH (FF), A
+                0xFB,             // EI
+                0x76 });          // HALT
+        bus.write(0x40, 0x06); // LD B, 40
+        bus.write(0x41, 0x40);
+        bus.write(0x42, 0x76); // HALT
+        bus.write(0x50, 0x06); // LD B, 50
+        bus.write(0x51, 0x50);
+        bus.write(0x52, 0x76); // HALT
+
+        run(cpu, 100);
+        assertEquals(Long.MAX_VALUE, cpu.nextEventCycle(100));
+
+        cpu.requestInterrupt(Cpu.Interrupt.LCD_STAT);
+        assertEquals(Long.MAX_VALUE, cpu.nextEventCycle(100));
+
+        cpu.requestInterrupt(Cpu.Interrupt.TIMER);
+        cpu.requestInterrupt(Cpu.Interrupt.VBLANK);
+        assertEquals(100, cpu.nextEventCycle(100));
+        for (long c = 100; c < 200; ++c)
+            cpu.cycle(c);
+        assertEquals(0x40, cpu._testGetPcSpAFBCDEHL()[4]);
+        assertEquals(0b0110, bus.read(0xFF0F));
+    }
+
+    @Test
+    void idleLoopsAreSkippedWithoutChangingTheResult() {
+        int[] program = {
+                0x3E, 0x91,       // LD A, 91
+                0xE0, 0x40,       // LDH (40), A : allume l'écran
+                0xF0, 0x44,       // C004: LDH A, (44)
+                0xFE, 0x8F,       // CP 8F
+                0x20, 0xFA,       // JR NZ, C004
+                0x04,             // INC B
+                0xF0, 0x41,       // LDH A, (41)
+                0x4F,             // LD C, A : mode au début de la ligne
+                0xF0, 0x44,       // C00E: LDH A, (44)
+                0xFE, 0x00,       // CP 0
+                0x20, 0xFA,       // JR NZ, C00E
+                0x18, 0xEE };     // JR C004
+        long end = 5 * 17556;
+
+        int[][] regs = new int[2][];
+        int[] steps = new int[2];
+        for (int i = 0; i < 2; ++i) {
+            Bus bus = new Bus();
+            Cpu cpu = newCpu(bus, new Cpu(), program);
+            LcdController lcd = new LcdController(cpu);
+            lcd.attachTo(bus);
+            if (i == 1)
+                cpu.setIdleHorizon(c -> Math.min(end, lcd.nextEventCycle(c)));
+
+            Scheduler scheduler = new Scheduler(lcd, cpu);
+            for (long c = scheduler.nextEventCycle(0); c < end; c = scheduler
+                    .nextEventCycle(c + 1)) {
+                scheduler.cycle(c);
+                ++steps[i];
+            }
+            regs[i] = cpu._testGetPcSpAFBCDEHL();
+        }
+
+        assertArrayEquals(regs[0], regs[1]);
+        assertEquals(5, regs[1][4]);
+        assertEquals(2, regs[1][5] & 0b11);
+        assertTrue(steps[1] * 3 < steps[0]);
+    }
+
+    @Test
+    void fusedLoopsGiveTheSameResult() {
+        int[] program = {
+                0x3E, 0x91,       // LD A, 91
+                0xE0, 0x40,       // LDH (40), A : allume l'écran
+                0x21, 0x00, 0xC0, // C004: LD HL, C000
+                0x11, 0x00, 0xD0, // LD DE, D000
+                0x01, 0x00, 0x02, // LD BC, 0200
+                0x2A,             // C00D: LD A, (HL+)
+                0x12,             // LD (DE), A
+                0x13,             // INC DE
+                0x0B,             // DEC BC
+                0x78,             // LD A, B
+                0xB1,             // OR C
+                0x20, 0xF8,       // JR NZ, C00D
+                0x21, 0x00, 0xD8, // LD HL, D800
+                0x0E, 0x00,       // LD C, 0
+                0x3E, 0x5A,       // LD A, 5A
+                0x22,             // C01C: LD (HL+), A
+                0x0D,             // DEC C
+                0x20, 0xFC,       // JR NZ, C01C
+                0x06, 0x00,       // LD B, 0
+                0xF0, 0x41,       // C022: LDH A, (41)
+                0xE6, 0x03,       // AND 3
+                0x83,             // ADD A, E : somme des modes lus
+                0x5F,             // LD E, A
+                0x05,             // DEC B
+                0x20, 0xF7,       // JR NZ, C022
+                0x73,             // LD (HL), E
+                0xF0, 0x44,       // C02C: LDH A, (44)
+                0xFE, 0x90,       // CP 90
+                0x20, 0xFA,       // JR NZ, C02C
+                0x18, 0xD0 };     // JR C004
+        long end = 3 * 17556 + 1234;
+
+        int[][] regs = new int[2][];
+        int[][] memory = new int[2][0x901];
+        int[] steps = new int[2];
+        for (int i = 0; i < 2; ++i) {
+            Bus bus = new Bus();
+            Cpu cpu = newCpu(bus, new Cpu(), program);
+            LcdController lcd = new LcdController(cpu);
+            lcd.attachTo(bus);
+            cpu.setIdleHorizon(c -> Math.min(end, lcd.nextEventCycle(c)));
+            cpu.useLoopFusion(i == 1);
+
+            Scheduler scheduler = new Scheduler(lcd, cpu);
+            for (long c = scheduler.nextEventCycle(0); c < end; c = scheduler
+                    .nextEventCycle(c + 1)) {
+                scheduler.cycle(c);
+                ++steps[i];
+            }
+            regs[i] = cpu._testGetPcSpAFBCDEHL();
+            for (int a = 0; a < memory[i].length; ++a)
+                memory[i][a] = bus.read(0xD000 + a);
+        }
+
+        assertArrayEquals(regs[0], regs[1]);
+        assertArrayEquals(memory[0], memory[1]);
+        assertEquals(0x2A, memory[1][0xD]);
+        assertEquals(0x5A, memory[1][0x8FF]);
+        assertTrue(steps[1] * 2 < steps[0]);
+    }
+}
@@ -0,0 +1,119 @@
+package ch.epfl.gameboj.component.cpu;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.component.cpu.Alu.RotDir;
+
+public final class TableAluTest {
+
+    private static int[] vectors(String name) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(
+                        new FileInputStream("test/data/" + name + ".bin.gz"))))) {
+            int[] values = new int[1 << 10];
+            int n = 0;
+            try {
+                while (true) {
+                    int v = in.readInt();
+                    if (n == values.length)
+                        values = Arrays.copyOf(values, 2 * n);
+                    values[n++] = v;
+                }
+            } catch (EOFException e) {
+                return Arrays.copyOf(values, n);
+            }
+        }
+    }
+
+    private interface AddSub {
+        int apply(int l, int r, boolean c);
+    }
+
+    private static void assertAddSub(String name, AddSub alu, AddSub tables)
+            throws IOException {
+        int[] expected = vectors(name);
+        assertEquals(2 << 16, expected.length);
+        int i = 0;
+        for (int l = 0; l < 0x100; ++l)
+            for (int r = 0; r < 0x100; ++r)
+                for (int c = 0; c < 2; ++c, ++i) {
+                    assertEquals(expected[i], alu.apply(l, r, c == 1));
+                    assertEquals(expected[i], tables.apply(l, r, c == 1));
+                }
+    }
+
+    private static void assertUnary(String name, IntUnaryOperator alu,
+            IntUnaryOperator tables) throws IOException {
+        int[] expected = vectors(name);
+        assertEquals(0x100, expected.length);
+        for (int v = 0; v < 0x100; ++v) {
+            assertEquals(expected[v], alu.applyAsInt(v));
+            assertEquals(expected[v], tables.applyAsInt(v));
+        }
+    }
+
+    @Test
+    void addMatchesReferenceVectors() throws IOException {
+        assertAddSub("ADD", Alu::add, TableAlu::add);
+    }
+
+    @Test
+    void subMatchesReferenceVectors() throws IOException {
+        assertAddSub("SUB", Alu::sub, TableAlu::sub);
+    }
+
+    @Test
+    void bcdAdjustMatchesReferenceVectors() throws IOException {
+        int[] expected = vectors("BCDA");
+        assertEquals(0x100 << 3, expected.length);
+        int i = 0;
+        for (int v = 0; v < 0x100; ++v)
+            for (int nhc = 0; nhc < 8; ++nhc, ++i) {
+                boolean n = (nhc & 0b100) != 0, h = (nhc & 0b10) != 0,
+                        c = (nhc & 1) != 0;
+                assertEquals(expected[i], Alu.bcdAdjust(v, n, h, c));
+                assertEquals(expected[i], TableAlu.bcdAdjust(v, n, h, c));
+            }
+    }
+
+    @Test
+    void rotateMatchesReferenceVectors() throws IOException {
+        int[] expected = vectors("ROT2");
+        assertEquals(0x200, expected.length);
+        int i = 0;
+        for (RotDir d : RotDir.values())
+            for (int v = 0; v < 0x100; ++v, ++i) {
+                assertEquals(expected[i], Alu.rotate(d, v));
+                assertEquals(expected[i], TableAlu.rotate(d, v));
+            }
+
+        expected = vectors("ROT3");
+        assertEquals(0x400, expected.length);
+        i = 0;
+        for (RotDir d : RotDir.values())
+            for (int v = 0; v < 0x100; ++v)
+                for (int c = 0; c < 2; ++c, ++i) {
+                    assertEquals(expected[i], Alu.rotate(d, v, c == 1));
+                    assertEquals(expected[i], TableAlu.rotate(d, v, c == 1));
+                }
+    }
+
+    @Test
+    void shiftsAndSwapMatchReferenceVectors() throws IOException {
+        assertUnary("SHL", Alu::shiftLeft, TableAlu::shiftLeft);
+        assertUnary("SHR_A", Alu::shiftRightA, TableAlu::shiftRightA);
+        assertUnary("SHR_L", Alu::shiftRightL, TableAlu::shiftRightL);
+        assertUnary("SWAP", Alu::swap, TableAlu::swap);
+    }
+}
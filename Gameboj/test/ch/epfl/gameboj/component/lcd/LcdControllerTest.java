@@ -0,0 +1,274 @@
+package ch.epfl.gameboj.component.lcd;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.AddressMap;
+import ch.epfl.gameboj.Bus;
+import ch.epfl.gameboj.Scheduler;
+import ch.epfl.gameboj.component.cpu.Cpu;
+import ch.epfl.gameboj.component.memory.Ram;
+import ch.epfl.gameboj.component.memory.RamController;
+
+public final class LcdControllerTest {
+
+    private static final int FRAME_CYCLES = 17556;
+    private static final int FRAMES = 6;
+
+    private static LcdController newLcd(Bus bus) {
+        return newLcd(bus, new Cpu());
+    }
+
+    private static LcdController newLcd(Bus bus, Cpu cpu) {
+        LcdController lcd = new LcdController(cpu);
+        cpu.attachTo(bus);
+        lcd.attachTo(bus);
+        return lcd;
+    }
+
+    private static void fillVideoRam(Bus bus, Random rng) {
+        for (int a = AddressMap.VIDEO_RAM_START; a < AddressMap.VIDEO_RAM_END; ++a)
+            bus.write(a, rng.nextInt(0x100));
+    }
+
+    private static long cycle(LcdController lcd, long c, int frames) {
+        for (long end = c + frames * FRAME_CYCLES; c < end; ++c)
+            lcd.cycle(c);
+        return c;
+    }
+
+    private static int[] colors(LcdImage image) {
+        int[] colors = new int[image.getWidth() * image.getHeight()];
+        for (int y = 0; y < image.getHeight(); ++y)
+            for (int x = 0; x < image.getWidth(); ++x)
+                colors[y * image.getWidth() + x] = image.getColor(x, y);
+        return colors;
+    }
+
+    // Dessine FRAMES images d'un écran aléatoire dont les sprites, leur
+    // hauteur et le défilement du fond changent à chaque image, en notant
+    // dans timing LY, STAT et IF après chaque cycle
+    private static int[][] render(long seed, boolean imageLineRenderer,
+            int frameSkip, int[] timing) {
+        Random rng = new Random(seed);
+        Bus bus = new Bus();
+        LcdController lcd = newLcd(bus);
+        lcd.useImageLineRenderer(imageLineRenderer);
+        lcd.setFrameSkip(frameSkip);
+
+        fillVideoRam(bus, rng);
+        for (int a = AddressMap.OAM_START; a < AddressMap.OAM_END; ++a)
+            bus.write(a, rng.nextInt(0x100));
+        for (int r : new int[] { 0xFF42, 0xFF47, 0xFF48, 0xFF49 })
+            bus.write(r, rng.nextInt(0x100));
+        bus.write(0xFF4A, rng.nextInt(0x90));
+        bus.write(0xFF4B, rng.nextInt(0xB0));
+        bus.write(0xFF45, rng.nextInt(0x9A));
+        bus.write(0xFF41, 0b0111_1000);
+        bus.write(0xFF40, 0x82 | rng.nextInt(0x80));
+
+        int[][] frames = new int[FRAMES][];
+        long c = 0;
+        for (int f = 0; f < frames.length; ++f) {
+            if (f > 0) {
+                for (int i = 0; i < 16; ++i)
+                    bus.write(AddressMap.OAM_START + rng.nextInt(0xA0),
+                            rng.nextInt(0x100));
+                bus.write(0xFF40, bus.read(0xFF40) ^ 0b100);
+            }
+            bus.write(0xFF43, f * 8);
+            for (long end = c + FRAME_CYCLES; c < end; ++c) {
+                lcd.cycle(c);
+                timing[(int) c] = bus.read(0xFF44) << 16
+                        | bus.read(0xFF41) << 8 | bus.read(0xFF0F);
+            }
+            frames[f] = colors(lcd.currentImage());
+        }
+        return frames;
+    }
+
+    @Test
+    void directRendererProducesSameImagesAsImageLineRenderer() {
+        Random rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS / 20; ++i) {
+            long seed = rng.nextLong();
+            int[] expectedTiming = new int[FRAMES * FRAME_CYCLES];
+            int[] actualTiming = new int[FRAMES * FRAME_CYCLES];
+            int[][] expected = render(seed, true, 0, expectedTiming);
+            int[][] actual = render(seed, false, 0, actualTiming);
+
+            assertArrayEquals(expectedTiming, actualTiming);
+            for (int f = 0; f < expected.length; ++f)
+                assertArrayEquals(expected[f], actual[f]);
+        }
+    }
+
+    @Test
+    void frameSkipRendersOneFrameInNAndKeepsTiming() {
+        Random rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS / 20; ++i) {
+            long seed = rng.nextLong();
+            int[] expectedTiming = new int[FRAMES * FRAME_CYCLES];
+            int[] actualTiming = new int[FRAMES * FRAME_CYCLES];
+            int[][] expected = render(seed, false, 0, expectedTiming);
+            int[][] actual = render(seed, false, 2, actualTiming);
+
+            assertArrayEquals(expectedTiming, actualTiming);
+            for (int f = 0; f < expected.length; ++f)
+                assertArrayEquals(expected[f - f % 3], actual[f]);
+        }
+    }
+
+    private static int[] renderWithCpu(long seed, boolean imageLineRenderer) {
+        Bus bus = new Bus();
+        Cpu cpu = new Cpu();
+        LcdController lcd = newLcd(bus, cpu);
+        lcd.useImageLineRenderer(imageLineRenderer);
+        new RamController(new Ram(0x100), 0).attachTo(bus);
+        new RamController(new Ram(AddressMap.WORK_RAM_SIZE),
+                AddressMap.WORK_RAM_START).attachTo(bus);
+
+        fillVideoRam(bus, new Random(seed));
+        bus.write(0xFF47, 0xE4);
+
+        int[] program = {
+                0xC3, 0x00, 0xC0, // JP C000
+        };
+        int[] loop = {
+                0x3E, 0x91,       // LD A, 91
+                0xE0, 0x40,       // LDH (40), A : allume l'écran
+                0xF0, 0x44,       // C004: LDH A, (44)
+                0xE0, 0x43,       // LDH (43), A : SCX = LY
+                0x18, 0xFA };     // JR C004
+        for (int i = 0; i < program.length; ++i)
+            bus.write(i, program[i]);
+        for (int i = 0; i < loop.length; ++i)
+            bus.write(AddressMap.WORK_RAM_START + i, loop[i]);
+
+        Scheduler scheduler = new Scheduler(lcd, cpu);
+        for (long c = 0; c < 2 * FRAME_CYCLES; ++c)
+            scheduler.cycle(c);
+        return colors(lcd.currentImage());
+    }
+
+    @Test
+    void imageLineRendererWorksWithCycledCpu() {
+        long seed = newRandom().nextLong();
+        assertArrayEquals(renderWithCpu(seed, false),
+                renderWithCpu(seed, true));
+    }
+
+    @Test
+    void directRendererImagesDoNotChangeAfterwards() {
+        Bus bus = new Bus();
+        LcdController lcd = newLcd(bus);
+        fillVideoRam(bus, newRandom());
+        bus.write(0xFF47, 0xE4);
+        bus.write(0xFF40, 0x91);
+
+        long c = cycle(lcd, 0, 2);
+        LcdImage image = lcd.currentImage();
+        int[] expected = colors(image);
+
+        for (int f = 1; f <= 3; ++f) {
+            bus.write(0xFF43, f * 8);
+            c = cycle(lcd, c, 1);
+            assertNotSame(image, lcd.currentImage());
+            assertArrayEquals(expected, colors(image));
+        }
+    }
+
+    @Test
+    void renderingCanBeDisabledAndEnabledAgain() {
+        Bus bus = new Bus();
+        LcdController lcd = newLcd(bus);
+        lcd.setRendering(false);
+        fillVideoRam(bus, newRandom());
+        bus.write(0xFF47, 0xE4);
+        bus.write(0xFF40, 0x91);
+
+        LcdImage blank = lcd.currentImage();
+        long c = cycle(lcd, 0, 3);
+        assertSame(blank, lcd.currentImage());
+
+        lcd.setRendering(true);
+        cycle(lcd, c, 2);
+        assertNotSame(blank, lcd.currentImage());
+    }
+
+    @Test
+    void lazyControllerMatchesControllerCycledEveryCycle() {
+        Random rng = newRandom();
+        long seed = rng.nextLong();
+        Bus[] buses = { new Bus(), new Bus() };
+        Cpu[] cpus = { new Cpu(), new Cpu() };
+        LcdController[] lcds = new LcdController[2];
+        for (int i = 0; i < 2; ++i) {
+            lcds[i] = newLcd(buses[i], cpus[i]);
+            fillVideoRam(buses[i], new Random(seed));
+        }
+        for (Bus b : buses) {
+            b.write(0xFF45, 0x20);
+            b.write(0xFF47, 0xE4);
+            b.write(0xFF41, 0b0100_1000);
+            b.write(0xFF40, 0x91);
+        }
+
+        for (long c = 0; c < 3 * FRAME_CYCLES; ++c) {
+            // Le premier contrôleur est appelé à chaque cycle, le second
+            // seulement lorsqu'il le demande
+            lcds[0].cycle(c);
+            if (lcds[1].nextEventCycle(c) <= c)
+                lcds[1].cycle(c);
+
+            if (rng.nextInt(300) == 0) {
+                // Les interruptions doivent être levées à temps, avant tout
+                // rattrapage
+                for (Cpu cpu : cpus)
+                    cpu.cycle(c);
+                assertEquals(buses[0].read(0xFF0F), buses[1].read(0xFF0F));
+                for (Bus b : buses)
+                    b.write(0xFF0F, 0);
+
+                int scx = rng.nextInt(0x100);
+                for (Bus b : buses)
+                    b.write(0xFF43, scx);
+                for (int r : new int[] { 0xFF41, 0xFF44 })
+                    assertEquals(buses[0].read(r), buses[1].read(r));
+            }
+        }
+        assertArrayEquals(colors(lcds[0].currentImage()),
+                colors(lcds[1].currentImage()));
+    }
+
+    @Test
+    void dmaBlocksOamThenCopiesSourceWhenDone() {
+        Bus bus = new Bus();
+        LcdController lcd = newLcd(bus);
+        new RamController(new Ram(0x2000), 0xC000).attachTo(bus);
+        for (int i = 0; i < 0xA0; ++i) {
+            bus.write(0xC100 + i, i ^ 0x5A);
+            bus.write(AddressMap.OAM_START + i, 0x11);
+        }
+
+        bus.write(0xFF46, 0xC1);
+        // La copie n'est faite qu'à la fin, la mémoire des sprites étant
+        // inaccessible entre-temps
+        for (long c = 0; c < 0xA0 - 1; ++c)
+            lcd.cycle(c);
+        bus.write(AddressMap.OAM_START, 0x22);
+        assertEquals(0xFF, bus.read(AddressMap.OAM_START));
+
+        lcd.cycle(0xA0 - 1);
+        for (int i = 0; i < 0xA0; ++i)
+            assertEquals(i ^ 0x5A, bus.read(AddressMap.OAM_START + i));
+    }
+}
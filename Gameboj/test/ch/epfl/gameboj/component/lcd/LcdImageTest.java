@@ -0,0 +1,59 @@
+package ch.epfl.gameboj.component.lcd;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public final class LcdImageTest {
+
+    private static final int[] PALETTE = { 0xFFFFFFFF, 0xFFAAAAAA, 0xFF555555,
+            0xFF000000 };
+
+    private static LcdImage randomImage(Random rng, int width, int height) {
+        LcdImage.Builder b = new LcdImage.Builder(width, height);
+        for (int y = 0; y < height; ++y) {
+            LcdImageLine.Builder lb = new LcdImageLine.Builder(width);
+            for (int i = 0; i < width / Byte.SIZE; ++i)
+                lb.setBytes(i, rng.nextInt(0x100), rng.nextInt(0x100));
+            b.setLine(y, lb.build());
+        }
+        return b.build();
+    }
+
+    @Test
+    void copyPixelsMapsEveryPixelThroughPalette() {
+        Random rng = newRandom();
+        LcdImage image = randomImage(rng, 160, 144);
+        int[] argb = new int[160 * 144];
+        image.copyPixels(argb, PALETTE);
+        for (int y = 0; y < 144; ++y)
+            for (int x = 0; x < 160; ++x)
+                assertEquals(PALETTE[image.getColor(x, y)], argb[y * 160 + x]);
+    }
+
+    @Test
+    void imagesFromLinesAndFromPixelsAreEqual() {
+        Random rng = newRandom();
+        LcdImage image = randomImage(rng, 64, 8);
+        byte[] pixels = new byte[64 * 8];
+        for (int y = 0; y < 8; ++y)
+            for (int x = 0; x < 64; ++x)
+                pixels[y * 64 + x] = (byte) image.getColor(x, y);
+        LcdImage copy = new LcdImage(64, 8, pixels);
+        assertEquals(image, copy);
+        assertEquals(image.hashCode(), copy.hashCode());
+    }
+
+    @Test
+    void copyPixelsFailsWithInvalidArguments() {
+        LcdImage image = randomImage(newRandom(), 32, 2);
+        assertThrows(IllegalArgumentException.class,
+                () -> image.copyPixels(new int[63], PALETTE));
+        assertThrows(IllegalArgumentException.class,
+                () -> image.copyPixels(new int[64], new int[3]));
+    }
+}
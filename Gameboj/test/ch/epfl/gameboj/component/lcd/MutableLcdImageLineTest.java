@@ -0,0 +1,55 @@
+package ch.epfl.gameboj.component.lcd;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.gameboj.bits.BitVector;
+
+public final class MutableLcdImageLineTest {
+
+    private static BitVector randomVector(Random rng, int size) {
+        BitVector.Builder b = new BitVector.Builder(size);
+        for (int i = 0; i < size / Byte.SIZE; ++i)
+            b.setByte(i, rng.nextInt(0x100));
+        return b.build();
+    }
+
+    private static LcdImageLine randomLine(Random rng, int size) {
+        return new LcdImageLine(randomVector(rng, size),
+                randomVector(rng, size), randomVector(rng, size));
+    }
+
+    private static void assertLineEquals(LcdImageLine expected,
+            MutableLcdImageLine actual) {
+        LcdImageLine a = actual.toLcdImageLine();
+        assertEquals(expected.msb(), a.msb());
+        assertEquals(expected.lsb(), a.lsb());
+        assertEquals(expected.opacity(), a.opacity());
+    }
+
+    @Test
+    void fusedOperationsMatchLcdImageLine() {
+        Random rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            int size = 32 * (1 + rng.nextInt(8));
+            LcdImageLine l1 = randomLine(rng, size);
+            LcdImageLine l2 = randomLine(rng, size);
+            MutableLcdImageLine m1 = new MutableLcdImageLine(size);
+            MutableLcdImageLine m2 = new MutableLcdImageLine(size).set(l2);
+            int palette = rng.nextInt(0x100);
+            int index = rng.nextInt(size);
+
+            assertLineEquals(l1.mapColors(palette),
+                    m1.set(l1).mapColors(palette));
+            assertLineEquals(l1.below(l2), m1.set(l1).below(m2));
+            assertLineEquals(l1.join(l2, index), m1.set(l1).join(m2, index));
+            assertLineEquals(l1.shift(index - size / 2),
+                    m1.set(l1).shift(index - size / 2));
+        }
+    }
+}
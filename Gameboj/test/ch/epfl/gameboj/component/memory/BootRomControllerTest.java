@@ -9,6 +9,7 @@ import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 
+import ch.epfl.gameboj.Bus;
 import ch.epfl.gameboj.component.Component;
 import ch.epfl.gameboj.component.ComponentTest;
 import ch.epfl.gameboj.component.cartridge.CartridgeTest;
@@ -60,6 +61,31 @@ public final class BootRomControllerTest implements ComponentTest {
             assertEquals(Byte.toUnsignedInt(romData[a]), c.read(a));
     }
     
+    @Test
+    void busReadsTheBankSelectedLast() {
+        Random rng = newRandom();
+        byte[] romData = new byte[0x10000];
+        rng.nextBytes(romData);
+        romData[0x147] = 1;
+        romData[0x149] = 0;
+
+        Bus bus = new Bus();
+        new BootRomController(CartridgeTest.cartridgeWithData(romData))
+                .attachTo(bus);
+        for (int a = 0; a <= 0xFF; ++a)
+            assertEquals(Byte.toUnsignedInt(bootRomData[a]), bus.read(a));
+
+        bus.write(0xFF50, 0);
+        for (int bank = 3; bank > 0; --bank) {
+            bus.write(0x2000, bank);
+            for (int a = 0; a < 0x4000; ++a) {
+                assertEquals(Byte.toUnsignedInt(romData[a]), bus.read(a));
+                assertEquals(Byte.toUnsignedInt(romData[bank * 0x4000 + a]),
+                        bus.read(0x4000 + a));
+            }
+        }
+    }
+
     private static byte[] bootRomData = new byte[] {
             (byte)0x31, (byte)0xFE, (byte)0xFF, (byte)0x21, (byte)0x00, (byte)0x80, (byte)0x22, (byte)0xCB,
             (byte)0x6C, (byte)0x28, (byte)0xFB, (byte)0x3E, (byte)0x80, (byte)0xE0, (byte)0x26, (byte)0xE0,
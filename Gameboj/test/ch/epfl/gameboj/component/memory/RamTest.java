@@ -32,6 +32,21 @@ class RamTest {
         }
     }
 
+    @Test
+    void uncheckedAccessesMatchCheckedOnes() {
+        Random rng = newRandom();
+        int size = 10_000;
+        Ram r = new Ram(size);
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            int a = rng.nextInt(size);
+            int v = rng.nextInt(0x100);
+            r.writeUnchecked(a, v);
+            assertEquals(v, r.read(a));
+            r.write(a, v ^ 0xFF);
+            assertEquals(v ^ 0xFF, r.readUnchecked(a));
+        }
+    }
+
     @Test
     void readReadsWhatWriteWrote() {
         Random rng = newRandom();